@@ -1,11 +1,9 @@
 package com.celerysoft;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
 import android.support.annotation.ColorInt;
 import android.support.annotation.ColorRes;
 import android.support.annotation.Nullable;
@@ -24,12 +22,9 @@ import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.view.animation.Animation;
-import android.view.animation.DecelerateInterpolator;
-import android.view.animation.Transformation;
+import android.view.animation.AnimationUtils;
 import android.widget.AbsListView;
-import android.widget.ProgressBar;
-import android.widget.RelativeLayout;
+import android.widget.Scroller;
 
 /**
  * The SwipeRefreshLayout should be used whenever the user can refresh the
@@ -66,39 +61,56 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
     // Maps to ProgressBar default style
     public static final int DEFAULT = MaterialProgressDrawable.DEFAULT;
 
+    // Performance profiles, see setPerformanceProfile(int)
+    public static final int PERFORMANCE_PROFILE_AUTO = 0;
+    public static final int PERFORMANCE_PROFILE_DEFAULT = 1;
+    public static final int PERFORMANCE_PROFILE_LOW_END = 2;
+
     @VisibleForTesting
     static final int CIRCLE_DIAMETER = 40;
     @VisibleForTesting
     static final int CIRCLE_DIAMETER_LARGE = 56;
 
     static final int FOOTER_HEIGHT = 56;
+    // Per frame budget of the footer renderer, in nanoseconds
+    private static final long DEFAULT_FOOTER_DRAW_BUDGET = 2000000L;
+    // Delay of the next footer frame once the renderer went over its budget
+    private static final int FOOTER_THROTTLED_FRAME_DELAY = 32;
     static final int HEADER_HEIGHT = 56;
 
 
-    private static final int MAX_ALPHA = 255;
-    private static final int STARTING_PROGRESS_ALPHA = (int) (.3f * MAX_ALPHA);
+    private static final int MAX_ALPHA = SpinnerFeedback.MAX_ALPHA;
+    private static final int STARTING_PROGRESS_ALPHA = SpinnerFeedback.STARTING_PROGRESS_ALPHA;
 
-    private static final float DECELERATE_INTERPOLATION_FACTOR = 2f;
     private static final int INVALID_POINTER = -1;
     private static final float DRAG_RATE = .5f;
 
     private float mHeaderDragRate = DRAG_RATE;
     private float mFooterDragRate = 1f;
 
-    // Max amount of circle that can be filled by progress during swipe gesture,
-    // where 1.0 is a full circle
-    private static final float MAX_PROGRESS_ANGLE = .8f;
-
     private static final int SCALE_DOWN_DURATION = 150;
 
     private static final int ALPHA_ANIMATION_DURATION = 300;
 
-    private static final int ANIMATE_TO_TRIGGER_DURATION = 200;
 
-    private static final int ANIMATE_TO_START_DURATION = 200;
+    private static final float DEFAULT_SPECULATIVE_FRACTION = .5f;
+
+    // Release velocity past which a pull triggers a refresh whatever its distance, in dips per second
+    private static final int DEFAULT_FLING_TRIGGER_VELOCITY = 1200;
+
+    // Transitions run by mTransitionAnimator
+    private static final int TRANSITION_SCALE_UP = 1;
+    private static final int TRANSITION_SCALE_DOWN = 2;
+    private static final int TRANSITION_ALPHA_START = 3;
+    private static final int TRANSITION_ALPHA_MAX = 4;
+    private static final int TRANSITION_MOVE_TO_CORRECT = 5;
+    private static final int TRANSITION_MOVE_TO_START = 6;
+    private static final int TRANSITION_SCALE_DOWN_TO_START = 7;
+    private static final int TRANSITION_FOOTER_TO_CORRECT = 8;
+    private static final int TRANSITION_FOOTER_TO_START = 9;
 
     // Default background for the progress spinner
-    private static final int CIRCLE_BG_LIGHT = 0xFFFAFAFA;
+    private static final int CIRCLE_BG_LIGHT = SpinnerFeedback.CIRCLE_BG_LIGHT;
     // Default offset in dips from the top of the view to where the progress spinner should stop
     private static final int DEFAULT_CIRCLE_TARGET = 64;
 
@@ -107,6 +119,11 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
      **/
     private boolean mHeaderScrollTogether = false;
 
+    /**
+     * Move the header, footer and target with translationY, see {@link #setOffsetByTranslation(boolean)}
+     **/
+    private boolean mOffsetByTranslation = false;
+
     private View mTarget; // the target of the gesture
 
     /**
@@ -149,39 +166,97 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
     private float mInitialDownY;
     private boolean mIsBeingDragged;
     private int mActivePointerId = INVALID_POINTER;
+    /** Pointer positions of the current drag, applied once per frame by {@link #applyDrag(boolean)} **/
+    private final DragSampler mDragSampler = new DragSampler();
+    private boolean mDragApplyScheduled;
+    /** Follows a fling of the target towards its end, see {@link #onNestedFling} **/
+    private Scroller mFlingScroller;
+    private boolean mFlingWatchScheduled;
+    private final Runnable mFlingWatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mFlingWatchScheduled = false;
+            watchFling();
+        }
+    };
+    /** Whether touch drags are drawn at the position predicted for the next frame **/
+    private boolean mTouchPredictionEnabled;
+    private final Runnable mApplyDragRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mDragApplyScheduled = false;
+            beginSpinnerFrame();
+            applyDrag(mTouchPredictionEnabled);
+            endSpinnerFrame();
+        }
+    };
     // Whether this item is scaled up rather than clipped
     boolean mScale;
+    // The scale mode asked for by the app, the low-end profile forces mScale off
+    private boolean mScaleRequested;
+    /** One of the PERFORMANCE_PROFILE_* constants, as set by the app **/
+    private int mPerformanceProfile = PERFORMANCE_PROFILE_AUTO;
+    /** Whether fades, scales, software shadows and the spinning animation are skipped **/
+    private boolean mLowEndProfile;
 
     // Target is returning to its start offset because it was cancelled or a
     // refresh was triggered.
     private boolean mReturningToStart;
-    private final DecelerateInterpolator mDecelerateInterpolator;
     private static final int[] LAYOUT_ATTRS = new int[]{
             android.R.attr.enabled
     };
 
     private boolean mUseDefaultHeaderView = true;
 
+    /**
+     * Draws the header on the canvas of this layout, see {@link #setHeaderRenderer(HeaderRenderer)}
+     **/
+    private HeaderRenderer mHeaderRenderer;
+
     private HeaderViewContainer mHeaderViewContainer;
-    private int mHeaderViewContainerIndex = -1;
     CircleImageView mCircleView;
 
-    private int mHeaderViewContainerWidth;
     private int mHeaderViewContainerHeight;
 
-    private RelativeLayout mFooterViewContainer;
-    private int mFooterViewContainerIndex = -1;
-    private ProgressBar mFooterProgressBar;
+    /**
+     * Draws the footer on the canvas of this layout, below the target, see
+     * {@link #setFooterRenderer(FooterRenderer)}
+     **/
+    private FooterRenderer mFooterRenderer;
+    /**
+     * Footer draws slower than this, in nanoseconds, animate at a lower frame rate
+     **/
+    private long mFooterDrawBudget = DEFAULT_FOOTER_DRAW_BUDGET;
+
+    /**
+     * Cached result of {@link #getChildDrawingOrder(int, int)}, the header view container is fixed
+     * above the target once instead of calling bringToFront() on every offset change.
+     **/
+    private int[] mChildDrawingOrder = new int[0];
+    private boolean mChildDrawingOrderDirty = true;
+
+    /**
+     * Measure specs last given to the target and the header view container. A child is only
+     * measured again when its spec changed, a layout was requested through this layout since, or
+     * for the header, its configuration changed. A parent such as CoordinatorLayout measures this
+     * layout several times per pass, the children are then measured once.
+     **/
+    private int mTargetWidthMeasureSpec;
+    private int mTargetHeightMeasureSpec;
+    private int mHeaderWidthMeasureSpec;
+    private boolean mTargetMeasureDirty = true;
+    private boolean mHeaderMeasureDirty = true;
 
     /**
      * Represent the push distance on push-to-load-more action.
      **/
     private int mPushDistance = 0;
+    /** Push distance the bounds of the target currently include, when not offset by translation **/
+    private int mTargetPushDistance;
 
     private boolean mLoadingMore;
 
-    private int mFooterViewContainerWidth;
-    private int mFooterViewContainerHeight;
+    private int mFooterHeight;
 
     protected int mFrom;
 
@@ -213,17 +288,36 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
 
     MaterialProgressDrawable mProgress;
 
-    private Animation mScaleAnimation;
+    /**
+     * Drives every header and footer transition, see {@link #onTransitionUpdate(int, float)}
+     **/
+    private final TransitionAnimator mTransitionAnimator;
 
-    private Animation mScaleDownAnimation;
+    private int mAlphaFrom;
+    private int mAlphaTo;
 
-    private Animation mAlphaStartAnimation;
 
-    private Animation mAlphaMaxAnimation;
+    boolean mNotify;
 
-    private Animation mScaleDownToStartAnimation;
+    /**
+     * Notify the refresh listeners on release instead of after the settle animation, see
+     * {@link #setNotifyRefreshOnRelease(boolean)}
+     **/
+    private boolean mNotifyRefreshOnRelease = false;
 
-    boolean mNotify;
+    /**
+     * Fraction of the trigger distance at which {@link OnSpeculativePullToRefreshListener} and
+     * {@link OnSpeculativePushToLoadMoreListener} are asked to start fetching
+     **/
+    private float mSpeculativeRefreshFraction = DEFAULT_SPECULATIVE_FRACTION;
+    private float mSpeculativeLoadMoreFraction = DEFAULT_SPECULATIVE_FRACTION;
+    /** Release velocity of a pull that triggers a refresh whatever its distance, in pixels per second **/
+    private float mFlingTriggerVelocity;
+    /** Velocity of the header when released, in pixels per second, for the next settle animation **/
+    private float mReleaseVelocity;
+    /** Whether the speculative callback has been dispatched for the current gesture **/
+    private boolean mSpeculativeRefreshDispatched;
+    private boolean mSpeculativeLoadMoreDispatched;
 
     private int mCircleDiameter;
 
@@ -233,32 +327,42 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
     private OnChildScrollUpCallback mChildScrollUpCallback;
     private OnChildScrollDownCallback mChildScrollDownCallback;
 
+    /**
+     * Snapshot of {@link #canChildScrollUp()} and {@link #canChildScrollDown()} for the touch
+     * event being dispatched, each probe runs at most once per event.
+     **/
+    private static final int SCROLL_CAPABILITY_UP = 1;
+    private static final int SCROLL_CAPABILITY_DOWN = 1 << 1;
+    private static final int SCROLL_CAPABILITY_UP_PROBED = 1 << 2;
+    private static final int SCROLL_CAPABILITY_DOWN_PROBED = 1 << 3;
+    private int mScrollCapability;
+    /** Time and action of the touch event the snapshot was taken for **/
+    private long mScrollCapabilityEventTime = -1;
+    private int mScrollCapabilityAction = -1;
+    /** How many times the target has actually been probed, see {@link #getScrollProbeCount()} **/
+    private int mScrollProbeCount;
+
     /**
      * 下拉时，超过距离之后，弹回来的动画监听器
      */
-    private Animation.AnimationListener mRefreshListener = new Animation.AnimationListener() {
-        @Override
-        public void onAnimationStart(Animation animation) {
-        }
-
+    private final TransitionAnimator.Listener mRefreshListener = new TransitionAnimator.Listener() {
         @Override
-        public void onAnimationRepeat(Animation animation) {
-        }
-
-        @Override
-        public void onAnimationEnd(Animation animation) {
+        public void onTransitionEnd(int transition) {
             if (mRefreshing) {
-                // Make sure the progress view is fully visible
-                mProgress.setAlpha(MAX_ALPHA);
-                mProgress.start();
-                if (mNotify) {
-                    if (mListener != null) {
-                        mListener.onRefresh();
-                    }
-                    if (mOnPullToRefreshListener != null) {
-                        mOnPullToRefreshListener.onRefresh();
+                // A header renderer draws its own progress
+                if (mHeaderRenderer == null) {
+                    if (mLowEndProfile) {
+                        SpinnerFeedback.applyStillRefresh(mProgress);
+                    } else {
+                        // Make sure the progress view is fully visible
+                        mProgress.setAlpha(MAX_ALPHA);
+                        mProgress.start();
                     }
                 }
+                if (mNotify) {
+                    mNotify = false;
+                    notifyRefresh();
+                }
 //                mCurrentTargetOffsetTop = mHeaderViewContainer.getTop();
             } else {
                 resetHeader();
@@ -269,14 +373,81 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
                 }
             }
 
-            mCurrentTargetOffsetTop = mHeaderViewContainer.getTop();
+            mCurrentTargetOffsetTop = getHeaderViewTop();
 //            notifyPullDistanceChanged();
         }
     };
 
+    /**
+     * Scale the circle down once the header has returned after a cancelled pull.
+     */
+    private final TransitionAnimator.Listener mScaleDownListener = new TransitionAnimator.Listener() {
+        @Override
+        public void onTransitionEnd(int transition) {
+            if (!mScale) {
+                startScaleDownAnimation(null);
+            }
+        }
+    };
+
+    private final TransitionAnimator.Listener mFooterReturnListener = new TransitionAnimator.Listener() {
+        @Override
+        public void onTransitionEnd(int transition) {
+            mLoadingMore = false;
+            resetFooter();
+        }
+    };
+
+    private final TransitionAnimator.Callback mTransitionCallback = new TransitionAnimator.Callback() {
+        @Override
+        public void onTransitionUpdate(int transition, float interpolatedTime) {
+            beginSpinnerFrame();
+            AdvancedSwipeRefreshLayout.this.onTransitionUpdate(transition, interpolatedTime);
+            endSpinnerFrame();
+        }
+
+        @Override
+        public void onSpringUpdate(int transition, float value) {
+            beginSpinnerFrame();
+            AdvancedSwipeRefreshLayout.this.onSpringUpdate(transition, value);
+            endSpinnerFrame();
+        }
+    };
+
+    /**
+     * The spinner changes made by a frame callback are drawn in that frame, instead of being
+     * coalesced into the next one like the changes made outside of a frame.
+     */
+    private void beginSpinnerFrame() {
+        if (mProgress != null) {
+            mProgress.beginFrame();
+        }
+    }
+
+    private void endSpinnerFrame() {
+        if (mProgress != null) {
+            mProgress.endFrame();
+        }
+    }
+
+    private void notifyRefresh() {
+        if (mListener != null) {
+            mListener.onRefresh();
+        }
+        if (mOnPullToRefreshListener != null) {
+            mOnPullToRefreshListener.onRefresh();
+        }
+    }
+
     void resetHeader() {
-        mHeaderViewContainer.clearAnimation();
-        mProgress.stop();
+        if (mHeaderViewContainer == null) {
+            return;
+        }
+        mTransitionAnimator.cancel(TransitionAnimator.CHANNEL_HEADER);
+        mTransitionAnimator.cancel(TransitionAnimator.CHANNEL_SPINNER);
+        if (mHeaderRenderer == null) {
+            mProgress.stop();
+        }
         mHeaderViewContainer.setVisibility(View.GONE);
         setColorViewAlpha(MAX_ALPHA);
         // Return the circle to its start position
@@ -286,7 +457,17 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
             setTargetOffsetTopAndBottom(mOriginalOffsetTop - mCurrentTargetOffsetTop,
                     true /* requires update */);
         }
-        mCurrentTargetOffsetTop = mHeaderViewContainer.getTop();
+        mCurrentTargetOffsetTop = getHeaderViewTop();
+    }
+
+    /**
+     * Hide the footer once no push is in progress, so that the footer renderer neither keeps
+     * drawing nor animating below the visible area.
+     */
+    private void resetFooter() {
+        mTransitionAnimator.cancel(TransitionAnimator.CHANNEL_FOOTER);
+        mPushDistance = 0;
+        invalidate();
     }
 
     @Override
@@ -297,14 +478,71 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         }
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateSpinnerSuspended();
+    }
+
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
-        resetHeader();
+        cancelPendingDrag();
+        stopFlingWatch();
+        // Settle right away, no frame must run while detached
+        mTransitionAnimator.endAll();
+        if (mRefreshing) {
+            // Keep the refreshing state, e.g. for a page of a ViewPager or an item of a list that
+            // gets attached again, only the spinner is paused.
+            updateSpinnerSuspended();
+        } else {
+            resetHeader();
+        }
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateSpinnerSuspended();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateSpinnerSuspended();
+    }
+
+    @Override
+    public void onWindowFocusChanged(boolean hasWindowFocus) {
+        super.onWindowFocusChanged(hasWindowFocus);
+        updateSpinnerSuspended();
+    }
+
+    /**
+     * Pause the spinner animation while this layout can not be seen: detached, hidden itself or
+     * by an ancestor, in an invisible window or in a window without focus. The refreshing state
+     * is kept and the animation resumes where it stopped.
+     */
+    private void updateSpinnerSuspended() {
+        if (mProgress == null || mHeaderRenderer != null) {
+            return;
+        }
+        final boolean visible = ViewCompat.isAttachedToWindow(this)
+                && isShown()
+                && getWindowVisibility() == View.VISIBLE
+                && hasWindowFocus();
+        if (visible) {
+            mProgress.resume();
+        } else {
+            mProgress.suspend();
+        }
     }
 
     @SuppressLint("NewApi")
     private void setColorViewAlpha(int targetAlpha) {
+        if (mHeaderRenderer != null) {
+            return;
+        }
 //        mHeaderViewContainer.getBackground().setAlpha(targetAlpha);
         mCircleView.getBackground().setAlpha(targetAlpha);
         mProgress.setAlpha(targetAlpha);
@@ -330,7 +568,9 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
      *              gesture.
      */
     public void setProgressViewOffset(boolean scale, int start, int end) {
-        mScale = scale;
+        ensureHeader();
+        mScaleRequested = scale;
+        mScale = scale && !mLowEndProfile;
         mOriginalOffsetTop = start;
         mSpinnerOffsetEnd = end;
         mUsingCustomStart = true;
@@ -368,8 +608,10 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
      *              gesture.
      */
     public void setProgressViewEndTarget(boolean scale, int end) {
+        ensureHeader();
         mSpinnerOffsetEnd = end;
-        mScale = scale;
+        mScaleRequested = scale;
+        mScale = scale && !mLowEndProfile;
         mCircleView.invalidate();
     }
 
@@ -377,6 +619,7 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
      * One of DEFAULT, or LARGE.
      */
     public void setSize(int size) {
+        ensureHeader();
         if (!mUseDefaultHeaderView) {
             return;
         }
@@ -391,6 +634,7 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
             mCircleDiameter = (int) (CIRCLE_DIAMETER * metrics.density);
         }
         mHeaderViewContainerHeight = (int) (mCircleDiameter + 8 * metrics.density);
+        mHeaderMeasureDirty = true;
         // force the bounds of the progress circle inside the circle view to
         // update by setting it to null before updating its size and then
         // re-setting it
@@ -400,16 +644,14 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
     }
 
     public void setHeaderView(View headerView) {
-        setHeaderView(headerView, new RelativeLayout.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT));
+        setHeaderView(headerView, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT));
     }
 
     public void setHeaderView(View headerView, ViewGroup.LayoutParams layoutParams) {
         if (headerView == null || layoutParams == null) {
             return;
         }
-        if (mHeaderViewContainer == null) {
-            return;
-        }
+        ensureHeader();
 
         if (layoutParams.height <= 0) {
             final DisplayMetrics metrics = getResources().getDisplayMetrics();
@@ -422,13 +664,72 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
 
         mHeaderDragRate = 1.0f;
         mUseDefaultHeaderView = false;
+        mHeaderRenderer = null;
+        mHeaderMeasureDirty = true;
         mHeaderViewContainer.removeAllViews();
-
-        RelativeLayout.LayoutParams lp = new RelativeLayout.LayoutParams(mHeaderViewContainerWidth, mHeaderViewContainerHeight);
-        lp.addRule(RelativeLayout.CENTER_IN_PARENT);
         mHeaderViewContainer.addView(headerView, layoutParams);
     }
 
+    /**
+     * Draw the header with a {@link HeaderRenderer} directly on the canvas of this layout instead
+     * of through header views. The renderer needs no child view, no measure and no layout pass,
+     * {@link MaterialHeaderRenderer} draws the default spinner this way.
+     *
+     * @param renderer The renderer, null to go back to the default spinner header
+     */
+    public void setHeaderRenderer(@Nullable HeaderRenderer renderer) {
+        if (renderer == null && mHeaderRenderer == null) {
+            return;
+        }
+        ensureHeader();
+
+        mHeaderRenderer = renderer;
+        mHeaderViewContainer.removeAllViews();
+        if (renderer != null) {
+            // The spinner view is not drawn anymore
+            mProgress.stop();
+            applyRendererProfile();
+            mUseDefaultHeaderView = false;
+            mHeaderViewContainerHeight = renderer.getHeight();
+            mTotalDragDistance = mSpinnerOffsetEnd = -1;
+        } else {
+            final DisplayMetrics metrics = getResources().getDisplayMetrics();
+            mUseDefaultHeaderView = true;
+            mHeaderViewContainerHeight = (int) (mCircleDiameter + 8 * metrics.density);
+            mTotalDragDistance = mSpinnerOffsetEnd = (int) (DEFAULT_CIRCLE_TARGET * metrics.density);
+
+            mHeaderViewContainer.addView(mCircleView,
+                    new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT));
+        }
+        // The resting offset depends on the header height
+        mOriginalOffsetCalculated = false;
+        mHeaderMeasureDirty = true;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Draw the push-to-load-more footer with a {@link FooterRenderer}, by default a
+     * {@link SpinnerFooterRenderer}.
+     *
+     * @param renderer The renderer, null to go back to the default one
+     */
+    public void setFooterRenderer(@Nullable FooterRenderer renderer) {
+        mFooterRenderer = renderer != null ? renderer : new SpinnerFooterRenderer(getContext());
+        mFooterHeight = mFooterRenderer.getHeight();
+        invalidate();
+    }
+
+    /**
+     * Set how long the footer renderer may take to draw a frame. While its draws go over this
+     * budget the footer animates every other frame, leaving the frame time to the target.
+     *
+     * @param budgetNanos Budget of a footer frame in nanoseconds, 2ms by default
+     */
+    public void setFooterDrawBudget(long budgetNanos) {
+        mFooterDrawBudget = budgetNanos;
+    }
+
     /**
      * Simple constructor to use when creating a SwipeRefreshLayout from code.
      *
@@ -453,26 +754,24 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
                 android.R.integer.config_mediumAnimTime);
 
         setWillNotDraw(false);
-        mDecelerateInterpolator = new DecelerateInterpolator(DECELERATE_INTERPOLATION_FACTOR);
+        mTransitionAnimator = new TransitionAnimator(this, mTransitionCallback);
 
         final DisplayMetrics metrics = getResources().getDisplayMetrics();
         mCircleDiameter = (int) (CIRCLE_DIAMETER * metrics.density);
         mHeaderViewContainerHeight = (int) (mCircleDiameter + 8 * metrics.density);
 
-        mFooterViewContainerHeight = (int) (FOOTER_HEIGHT * metrics.density);
-
-        createHeaderViewContainer();
-        createFooterViewContainer();
-        ViewCompat.setChildrenDrawingOrderEnabled(this, true);
         // the absolute offset has to take into account that the circle starts at an offset
         mTotalDragDistance = mSpinnerOffsetEnd = (int) (DEFAULT_CIRCLE_TARGET * metrics.density);
+        mFlingTriggerVelocity = DEFAULT_FLING_TRIGGER_VELOCITY * metrics.density;
 
         mNestedScrollingParentHelper = new NestedScrollingParentHelper(this);
         mNestedScrollingChildHelper = new NestedScrollingChildHelper(this);
         setNestedScrollingEnabled(true);
 
+        applyPerformanceProfile();
+
+        // The header and the footer are only built on first use, see ensureHeader() and ensureFooter()
         mOriginalOffsetTop = mCurrentTargetOffsetTop = -mHeaderViewContainerHeight;
-        moveToStart(1.0f);
 
         final TypedArray a = context.obtainStyledAttributes(attrs, LAYOUT_ATTRS);
         setEnabled(a.getBoolean(0, true));
@@ -481,37 +780,162 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
 
     @Override
     protected int getChildDrawingOrder(int childCount, int i) {
-        if (mHeaderViewContainerIndex < 0 && mFooterViewContainerIndex < 0) {
-            return i;
-        }
-        if (i == childCount - 2) {
-            return mHeaderViewContainerIndex;
-        }
-        if (i == childCount - 1) {
-            return mFooterViewContainerIndex;
-        }
-        int bigIndex = mFooterViewContainerIndex > mHeaderViewContainerIndex ? mFooterViewContainerIndex : mHeaderViewContainerIndex;
-        int smallIndex = mFooterViewContainerIndex < mHeaderViewContainerIndex ? mFooterViewContainerIndex : mHeaderViewContainerIndex;
-        if (i >= smallIndex && i < bigIndex - 1) {
-            return i + 1;
-        }
-        if (i >= bigIndex || (i == bigIndex - 1)) {
-            return i + 2;
-        }
-        return i;
-
-//        if (mHeaderViewContainerIndex < 0) {
-//            return i;
-//        } else if (i == childCount - 1) {
-//            // Draw the selected child last
-//            return mHeaderViewContainerIndex;
-//        } else if (i >= mHeaderViewContainerIndex) {
-//            // Move the children after the selected child earlier one
-//            return i + 1;
-//        } else {
-//            // Keep the children before the selected child the same
-//            return i;
-//        }
+        if (mChildDrawingOrderDirty || mChildDrawingOrder.length != childCount) {
+            buildChildDrawingOrder(childCount);
+        }
+        return mChildDrawingOrder[i];
+    }
+
+    /**
+     * Draw the children in their own order, except the header view container which is always
+     * drawn last so that it stays above the target. The footer is drawn after all children.
+     */
+    private void buildChildDrawingOrder(int childCount) {
+        if (mChildDrawingOrder.length != childCount) {
+            mChildDrawingOrder = new int[childCount];
+        }
+        int headerIndex = -1;
+        int order = 0;
+        for (int index = 0; index < childCount; index++) {
+            if (getChildAt(index) == mHeaderViewContainer) {
+                headerIndex = index;
+            } else {
+                mChildDrawingOrder[order++] = index;
+            }
+        }
+        if (headerIndex >= 0) {
+            mChildDrawingOrder[order] = headerIndex;
+        }
+        mChildDrawingOrderDirty = false;
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (mHeaderRenderer != null && mHeaderViewContainer.getVisibility() == View.VISIBLE) {
+            drawHeaderRenderer(canvas);
+        }
+        if (mFooterRenderer != null && mPushDistance > 0) {
+            drawFooterRenderer(canvas);
+        }
+    }
+
+    private void drawHeaderRenderer(Canvas canvas) {
+        final int headerLeft = mHeaderViewContainer.getLeft();
+        final int headerTop = getHeaderViewTop();
+        final int headerWidth = mHeaderViewContainer.getWidth();
+
+        final float pullFraction = mTotalDragDistance > 0
+                ? (mCurrentTargetOffsetTop - mOriginalOffsetTop) / mTotalDragDistance : 0f;
+        final int state;
+        if (mRefreshing) {
+            state = HeaderRenderer.STATE_REFRESHING;
+        } else if (pullFraction >= 1f) {
+            state = HeaderRenderer.STATE_RELEASE_TO_REFRESH;
+        } else if (pullFraction > 0f) {
+            state = HeaderRenderer.STATE_PULLING;
+        } else {
+            state = HeaderRenderer.STATE_IDLE;
+        }
+
+        final int saveCount = canvas.save();
+        canvas.clipRect(headerLeft, headerTop, headerLeft + headerWidth,
+                headerTop + mHeaderViewContainerHeight);
+        canvas.translate(headerLeft, headerTop);
+        final boolean animating = mHeaderRenderer.draw(canvas, headerWidth, pullFraction, state,
+                getDrawingTime());
+        canvas.restoreToCount(saveCount);
+
+        if (animating) {
+            ViewCompat.postInvalidateOnAnimation(this);
+        }
+    }
+
+    private void drawFooterRenderer(Canvas canvas) {
+        final int footerLeft = getPaddingLeft();
+        final int footerTop = getMeasuredHeight() - mPushDistance;
+        final int footerRight = getMeasuredWidth() - getPaddingRight();
+        final int footerBottom = footerTop + mFooterHeight;
+
+        final int saveCount = canvas.save();
+        canvas.clipRect(footerLeft, footerTop, footerRight, footerBottom);
+        canvas.translate(footerLeft, footerTop);
+        final long drawStart = System.nanoTime();
+        final boolean animating = mFooterRenderer.draw(canvas, footerRight - footerLeft,
+                mPushDistance, mLoadingMore, getDrawingTime());
+        final long drawDuration = System.nanoTime() - drawStart;
+        canvas.restoreToCount(saveCount);
+
+        if (!animating) {
+            return;
+        }
+        if (drawDuration > mFooterDrawBudget) {
+            // Over budget, give the frames back to the target and skip a frame
+            postInvalidateDelayed(FOOTER_THROTTLED_FRAME_DELAY,
+                    footerLeft, footerTop, footerRight, footerBottom);
+        } else {
+            ViewCompat.postInvalidateOnAnimation(this,
+                    footerLeft, footerTop, footerRight, footerBottom);
+        }
+    }
+
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        mChildDrawingOrderDirty = true;
+        if (child == mHeaderViewContainer) {
+            mHeaderMeasureDirty = true;
+        }
+    }
+
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        mChildDrawingOrderDirty = true;
+        if (child == mTarget) {
+            // Pick and measure the next target instead of holding on to a detached view
+            mTarget = null;
+            mTargetMeasureDirty = true;
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        // A child asking for a layout goes through here, measure it again on the next pass
+        mTargetMeasureDirty = true;
+        mHeaderMeasureDirty = true;
+        super.requestLayout();
+    }
+
+    /**
+     * Build the header view container, the progress circle and its drawable on first use: when a
+     * refresh listener is set, the header is configured, {@link #setRefreshing(boolean)} shows it
+     * or the first pull starts. Until then the layout neither creates, measures nor lays them out.
+     */
+    private void ensureHeader() {
+        if (mHeaderViewContainer != null) {
+            return;
+        }
+        createHeaderViewContainer();
+        ViewCompat.setChildrenDrawingOrderEnabled(this, true);
+
+        mCurrentTargetOffsetTop = mOriginalOffsetTop;
+        if (ViewCompat.isLaidOut(this)) {
+            // Created in the middle of a gesture or after the first layout pass, place the header
+            // at rest right away instead of waiting for the layout pass requested by addView()
+            measureHeaderViewContainer();
+            layoutHeaderViewContainer(getMeasuredWidth(), mOriginalOffsetTop);
+        }
+    }
+
+    /**
+     * Build the default footer renderer on first use, when a load-more listener is set or the
+     * first push starts.
+     */
+    private void ensureFooter() {
+        if (mFooterRenderer == null) {
+            setFooterRenderer(null);
+        }
     }
 
     private void createHeaderViewContainer() {
@@ -529,38 +953,17 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         }
 
         mCircleView = new CircleImageView(getContext(), CIRCLE_BG_LIGHT);
+        mCircleView.setShadowEnabled(!mLowEndProfile);
         mProgress = new MaterialProgressDrawable(getContext(), this);
         mProgress.setBackgroundColor(CIRCLE_BG_LIGHT);
+        // moveSpinner() changes several properties per move event
+        mProgress.setBatchInvalidations(true);
         mCircleView.setImageDrawable(mProgress);
         mCircleView.setVisibility(View.VISIBLE);
 
-
-        RelativeLayout.LayoutParams layoutParams = new RelativeLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
-        layoutParams.addRule(RelativeLayout.CENTER_IN_PARENT);
-        mHeaderViewContainer.addView(mCircleView, layoutParams);
-    }
-
-    private void createFooterViewContainer() {
-        mFooterViewContainer = new RelativeLayout(getContext());
-        mFooterViewContainer.setBackgroundColor(0x00FFFFFF);
-        mFooterViewContainer.setVisibility(View.GONE);
-
-        createProgressBar();
-
-        addView(mFooterViewContainer);
-    }
-
-    private void createProgressBar() {
-        if (mFooterViewContainer == null) {
-            return;
-        }
-
-        mFooterProgressBar = new ProgressBar(getContext(), null, android.R.attr.progressBarStyle);
-        mFooterProgressBar.setIndeterminate(true);
-
-        RelativeLayout.LayoutParams layoutParams = new RelativeLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
-        layoutParams.addRule(RelativeLayout.CENTER_IN_PARENT);
-        mFooterViewContainer.addView(mFooterProgressBar, layoutParams);
+        // Centered by the header view container
+        mHeaderViewContainer.addView(mCircleView,
+                new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT));
     }
 
     /**
@@ -569,6 +972,9 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
      */
     public void setOnRefreshListener(OnRefreshListener listener) {
         mListener = listener;
+        if (listener != null) {
+            ensureHeader();
+        }
     }
 
     /**
@@ -577,6 +983,63 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
     public void setOnPullToRefreshListener(OnPullToRefreshListener listener) {
         mCouldPullToRefresh = true;
         mOnPullToRefreshListener = listener;
+        ensureHeader();
+    }
+
+    /**
+     * By default the refresh listeners are notified once the header has settled at its refreshing
+     * position, when its spring comes to rest after the user lets go. When enabled,
+     * {@link OnRefreshListener#onRefresh()} and {@link OnPullToRefreshListener#onRefresh()} are
+     * called as soon as the release is confirmed past the trigger distance, and the header settles
+     * in parallel.
+     *
+     * @param notifyOnRelease true to notify the refresh on release
+     */
+    public void setNotifyRefreshOnRelease(boolean notifyOnRelease) {
+        mNotifyRefreshOnRelease = notifyOnRelease;
+    }
+
+    /**
+     * The header and the footer follow the finger one or two frames late, the time input events
+     * take to reach the screen. When enabled, a touch drag draws them where the finger is
+     * extrapolated to be when the frame is displayed, from the velocity of the recent touch
+     * samples. Whether releasing triggers a refresh or a load-more is still decided from the
+     * reported positions. Disabled by default.
+     *
+     * @param enabled true to predict the finger position
+     */
+    public void setTouchPredictionEnabled(boolean enabled) {
+        mTouchPredictionEnabled = enabled;
+    }
+
+    /**
+     * A quick flick that is released before the trigger distance still triggers a refresh when the
+     * finger moves faster than this velocity. Defaults to 1200dp per second.
+     *
+     * @param velocity velocity in pixels per second, 0 to only trigger past the trigger distance
+     */
+    public void setFlingTriggerVelocity(float velocity) {
+        mFlingTriggerVelocity = Math.max(0f, velocity);
+    }
+
+    /**
+     * Set the fraction of the trigger distance at which an {@link OnSpeculativePullToRefreshListener}
+     * is asked to start refreshing while the user is still pulling. Defaults to 0.5.
+     *
+     * @param fraction fraction of {@link #getTotalDragDistance()}, from 0 to 1
+     */
+    public void setSpeculativeRefreshFraction(float fraction) {
+        mSpeculativeRefreshFraction = Math.max(0f, Math.min(1f, fraction));
+    }
+
+    /**
+     * Set the fraction of the footer height at which an {@link OnSpeculativePushToLoadMoreListener}
+     * is asked to start loading while the user is still pushing. Defaults to 0.5.
+     *
+     * @param fraction fraction of the footer height, from 0 to 1
+     */
+    public void setSpeculativeLoadMoreFraction(float fraction) {
+        mSpeculativeLoadMoreFraction = Math.max(0f, Math.min(1f, fraction));
     }
 
     /**
@@ -585,6 +1048,7 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
     public void setOnPushToLoadMoreListener(OnPushToLoadMoreListener listener) {
         mCouldPushToLoadMore = true;
         mOnPushToLoadMoreListener = listener;
+        ensureFooter();
     }
 
     /**
@@ -599,10 +1063,10 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
             if (android.os.Build.VERSION.SDK_INT < android.os.Build.VERSION_CODES.HONEYCOMB) {
                 mLoadingMore = false;
                 mPushDistance = 0;
-                setFooterOffsetTopAndBottom(-mPushDistance, true);
+                applyPushDistance();
+                resetFooter();
             } else {
                 animatorFooterToStartPosition();
-//                animatorFooterToBottom(mFooterViewContainerHeight, 0);
             }
         }
     }
@@ -616,6 +1080,7 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
     public void setRefreshing(boolean refreshing) {
         if (refreshing && mRefreshing != refreshing) {
             // scale and show
+            ensureHeader();
             mRefreshing = refreshing;
             int endTarget = 0;
             if (!mUsingCustomStart) {
@@ -633,27 +1098,16 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
     }
 
     @SuppressLint("NewApi")
-    private void startScaleUpAnimation(Animation.AnimationListener listener) {
+    private void startScaleUpAnimation(TransitionAnimator.Listener listener) {
         mHeaderViewContainer.setVisibility(View.VISIBLE);
-        if (android.os.Build.VERSION.SDK_INT >= 11) {
+        if (mHeaderRenderer == null && android.os.Build.VERSION.SDK_INT >= 11) {
             // Pre API 11, alpha is used in place of scale up to show the
             // progress circle appearing.
             // Don't adjust the alpha during appearance otherwise.
             mProgress.setAlpha(MAX_ALPHA);
         }
-        mScaleAnimation = new Animation() {
-            @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                setAnimationProgress(interpolatedTime);
-            }
-        };
-        mScaleAnimation.setDuration(mMediumAnimationDuration);
-        if (listener != null) {
-            mHeaderViewContainer.setAnimationListener(listener);
-            mCircleView.setAnimationListener(listener);
-        }
-        mHeaderViewContainer.clearAnimation();
-        mHeaderViewContainer.startAnimation(mScaleAnimation);
+        mTransitionAnimator.start(TransitionAnimator.CHANNEL_HEADER, TRANSITION_SCALE_UP,
+                getEffectDuration(mMediumAnimationDuration), null, listener);
     }
 
     /**
@@ -662,6 +1116,9 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
      * @param progress
      */
     void setAnimationProgress(float progress) {
+        if (mHeaderRenderer != null) {
+            return;
+        }
         if (isAlphaUsedForScale()) {
             setColorViewAlpha((int) (progress * MAX_ALPHA));
         } else {
@@ -677,10 +1134,16 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
             mRefreshing = refreshing;
             if (mRefreshing) {
                 animateOffsetToCorrectPosition(mCurrentTargetOffsetTop, mRefreshListener);
+                if (mNotify && mNotifyRefreshOnRelease) {
+                    // Let the refresh run in parallel with the settle animation
+                    mNotify = false;
+                    notifyRefresh();
+                }
             } else {
                 // Only default Circle header view and scroll type use scale down animation
                 if (mUseDefaultHeaderView && !mHeaderScrollTogether) {
-                    startScaleDownAnimation(mRefreshListener);
+                    // Retarget the header spring, possibly still settling, and scale down with it
+                    startScaleDownReturnToStartAnimation(mCurrentTargetOffsetTop, mRefreshListener);
                 } else {
                     animateOffsetToStartPosition(mCurrentTargetOffsetTop, mRefreshListener);
                 }
@@ -688,55 +1151,94 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         }
     }
 
-    void startScaleDownAnimation(Animation.AnimationListener listener) {
-        mScaleDownAnimation = new Animation() {
-            @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                setAnimationProgress(1 - interpolatedTime);
-            }
-        };
-        mScaleDownAnimation.setDuration(SCALE_DOWN_DURATION);
-        mCircleView.setAnimationListener(listener);
-        mCircleView.clearAnimation();
-        mCircleView.startAnimation(mScaleDownAnimation);
+    void startScaleDownAnimation(TransitionAnimator.Listener listener) {
+        mTransitionAnimator.start(TransitionAnimator.CHANNEL_SPINNER, TRANSITION_SCALE_DOWN,
+                getEffectDuration(SCALE_DOWN_DURATION), null, listener);
     }
 
     @SuppressLint("NewApi")
     private void startProgressAlphaStartAnimation() {
-        mAlphaStartAnimation = startAlphaAnimation(mProgress.getAlpha(), STARTING_PROGRESS_ALPHA);
+        startAlphaAnimation(TRANSITION_ALPHA_START, mProgress.getAlpha(), STARTING_PROGRESS_ALPHA);
     }
 
     @SuppressLint("NewApi")
     private void startProgressAlphaMaxAnimation() {
-        mAlphaMaxAnimation = startAlphaAnimation(mProgress.getAlpha(), MAX_ALPHA);
+        startAlphaAnimation(TRANSITION_ALPHA_MAX, mProgress.getAlpha(), MAX_ALPHA);
     }
 
     @SuppressLint("NewApi")
-    private Animation startAlphaAnimation(final int startingAlpha, final int endingAlpha) {
+    private void startAlphaAnimation(int transition, int startingAlpha, int endingAlpha) {
         // Pre API 11, alpha is used in place of scale. Don't also use it to
         // show the trigger point.
         if (mScale && isAlphaUsedForScale()) {
-            return null;
+            return;
         }
-        Animation alpha = new Animation() {
-            @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                mProgress.setAlpha(
-                        (int) (startingAlpha + ((endingAlpha - startingAlpha) * interpolatedTime)));
+        mAlphaFrom = startingAlpha;
+        mAlphaTo = endingAlpha;
+        mTransitionAnimator.start(TransitionAnimator.CHANNEL_SPINNER, transition,
+                getEffectDuration(ALPHA_ANIMATION_DURATION), null, null);
+    }
+
+    /**
+     * @return The duration of a decorative transition, none with the low-end profile so that the
+     * transition jumps to its end on the next frame.
+     */
+    private long getEffectDuration(long duration) {
+        return mLowEndProfile ? 0 : duration;
+    }
+
+    /**
+     * Set how much the layout spends on decorative effects. With
+     * {@link #PERFORMANCE_PROFILE_LOW_END} the spinner does not fade nor scale, the circle has no
+     * pre-Lollipop shadow and the spinner stays still while refreshing. The default,
+     * {@link #PERFORMANCE_PROFILE_AUTO}, picks the low-end profile on low RAM devices, devices with a
+     * small memory class and displays refreshing below 55Hz.
+     *
+     * @param profile One of {@link #PERFORMANCE_PROFILE_AUTO}, {@link #PERFORMANCE_PROFILE_DEFAULT}
+     *                or {@link #PERFORMANCE_PROFILE_LOW_END}
+     */
+    public void setPerformanceProfile(int profile) {
+        if (profile != PERFORMANCE_PROFILE_AUTO && profile != PERFORMANCE_PROFILE_DEFAULT
+                && profile != PERFORMANCE_PROFILE_LOW_END) {
+            return;
+        }
+        mPerformanceProfile = profile;
+        applyPerformanceProfile();
+    }
+
+    /**
+     * @return The profile in effect, {@link #PERFORMANCE_PROFILE_DEFAULT} or
+     * {@link #PERFORMANCE_PROFILE_LOW_END}, {@link #PERFORMANCE_PROFILE_AUTO} being resolved.
+     */
+    public int getPerformanceProfile() {
+        return mLowEndProfile ? PERFORMANCE_PROFILE_LOW_END : PERFORMANCE_PROFILE_DEFAULT;
+    }
+
+    private void applyPerformanceProfile() {
+        mLowEndProfile = mPerformanceProfile == PERFORMANCE_PROFILE_LOW_END
+                || (mPerformanceProfile == PERFORMANCE_PROFILE_AUTO && DeviceProfile.isLowEnd(getContext()));
+        mScale = mScaleRequested && !mLowEndProfile;
+        applyRendererProfile();
+        if (mCircleView != null) {
+            mCircleView.setShadowEnabled(!mLowEndProfile);
+            if (!mScale) {
+                ViewCompat.setScaleX(mCircleView, 1f);
+                ViewCompat.setScaleY(mCircleView, 1f);
             }
-        };
-        alpha.setDuration(ALPHA_ANIMATION_DURATION);
-        // Clear out the previous animation listeners.
-        mCircleView.setAnimationListener(null);
-        mCircleView.clearAnimation();
-        mCircleView.startAnimation(alpha);
-        return alpha;
+        }
+    }
+
+    private void applyRendererProfile() {
+        if (mHeaderRenderer instanceof MaterialHeaderRenderer) {
+            ((MaterialHeaderRenderer) mHeaderRenderer).setLowEndProfile(mLowEndProfile);
+        }
     }
 
     /**
      * Set the background color of the header view container.
      */
     public void setHeaderViewContainerBackgroundColor(@ColorInt int color) {
+        ensureHeader();
         mHeaderViewContainer.setBackgroundColor(color);
     }
 
@@ -755,6 +1257,7 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
      * @param color
      */
     public void setProgressBackgroundColorSchemeColor(@ColorInt int color) {
+        ensureHeader();
         mCircleView.setBackgroundColor(color);
         mProgress.setBackgroundColor(color);
     }
@@ -784,9 +1287,33 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
      */
     public void setColorSchemeColors(@ColorInt int... colors) {
         ensureTarget();
+        ensureHeader();
         mProgress.setColorSchemeColors(colors);
     }
 
+    /**
+     * Set how many steps of the transition between two colors of the scheme are precomputed
+     * when the colors are set, see {@link #setColorSchemeColors(int...)}. 32 by default.
+     *
+     * @param steps Number of steps, at least 2
+     */
+    public void setColorTransitionSteps(int steps) {
+        ensureHeader();
+        mProgress.setColorTransitionSteps(steps);
+    }
+
+    /**
+     * Draw the spinning progress from arcs pre-rendered off the main thread, once per spinner size,
+     * instead of drawing every frame of the refresh animation. Cuts the per-frame work on low-end
+     * devices, the spinner is still drawn live while it is pulled.
+     *
+     * @param enabled true to draw the refresh animation from pre-rendered frames
+     */
+    public void setSpinnerSpriteMode(boolean enabled) {
+        ensureHeader();
+        mProgress.setSpriteMode(enabled);
+    }
+
     /**
      * @return Whether the SwipeRefreshWidget is actively showing refresh
      * progress.
@@ -795,13 +1322,18 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         return mRefreshing;
     }
 
+    @VisibleForTesting
+    TransitionAnimator getTransitionAnimator() {
+        return mTransitionAnimator;
+    }
+
     private void ensureTarget() {
         // Don't bother getting the parent height if the parent hasn't been laid
         // out yet.
         if (mTarget == null) {
             for (int i = 0; i < getChildCount(); i++) {
                 View child = getChildAt(i);
-                if (!child.equals(mHeaderViewContainer) && !child.equals(mFooterViewContainer)) {
+                if (!child.equals(mHeaderViewContainer)) {
                     mTarget = child;
                     break;
                 }
@@ -853,31 +1385,44 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         final int width = getMeasuredWidth();
         final int height = getMeasuredHeight();
 
-        int headViewWidth = mHeaderViewContainer.getMeasuredWidth();
-        int headViewHeight = mHeaderViewContainer.getMeasuredHeight();
-        int distanceFromTop = mHeaderScrollTogether ? mCurrentTargetOffsetTop + headViewHeight : 0;
-        mHeaderViewContainer.layout(
-                (width - headViewWidth) / 2,
-                mCurrentTargetOffsetTop + getPaddingTop(),
-                (width + headViewWidth) / 2,
-                mCurrentTargetOffsetTop + getPaddingTop() + headViewHeight
-        );
+        // In translation mode every view is laid out at its resting position and the current
+        // offsets are applied as translationY
+        final int headerOffsetTop = mOffsetByTranslation ? mOriginalOffsetTop : mCurrentTargetOffsetTop;
+        final int pushDistance = mOffsetByTranslation ? 0 : mPushDistance;
+
+        int distanceFromTop = 0;
+        if (mHeaderViewContainer != null) {
+            layoutHeaderViewContainer(width, headerOffsetTop);
+            if (mHeaderScrollTogether) {
+                distanceFromTop = headerOffsetTop + mHeaderViewContainer.getMeasuredHeight();
+            }
+        }
 
         final View child = mTarget;
         final int childLeft = getPaddingLeft();
-        final int childTop = getPaddingTop() + distanceFromTop - mPushDistance;// 根据偏移量distance更新
+        final int childTop = getPaddingTop() + distanceFromTop - pushDistance;// 根据偏移量distance更新
         final int childWidth = width - getPaddingLeft() - getPaddingRight();
         final int childHeight = height - getPaddingTop() - getPaddingBottom();
         child.layout(childLeft, childTop, childLeft + childWidth, childTop + childHeight);// 更新目标View的位置
+        mTargetPushDistance = pushDistance;
 
-        int footViewWidth = mFooterViewContainer.getMeasuredWidth();
-        int footViewHeight = mFooterViewContainer.getMeasuredHeight();
-        mFooterViewContainer.layout(
-                (width - footViewWidth) / 2,
-                height - mPushDistance,
-                (width + footViewWidth) / 2,
-                height - mPushDistance + footViewHeight
+        if (mOffsetByTranslation) {
+            updateTargetTranslation();
+        }
+    }
+
+    private void layoutHeaderViewContainer(int width, int headerOffsetTop) {
+        int headViewWidth = mHeaderViewContainer.getMeasuredWidth();
+        int headViewHeight = mHeaderViewContainer.getMeasuredHeight();
+        mHeaderViewContainer.layout(
+                (width - headViewWidth) / 2,
+                headerOffsetTop + getPaddingTop(),
+                (width + headViewWidth) / 2,
+                headerOffsetTop + getPaddingTop() + headViewHeight
         );
+        if (mOffsetByTranslation) {
+            ViewCompat.setTranslationY(mHeaderViewContainer, mCurrentTargetOffsetTop - mOriginalOffsetTop);
+        }
     }
 
     @Override
@@ -889,22 +1434,38 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         if (mTarget == null) {
             return;
         }
-        mTarget.measure(MeasureSpec.makeMeasureSpec(
-                getMeasuredWidth() - getPaddingLeft() - getPaddingRight(),
-                MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(
-                getMeasuredHeight() - getPaddingTop() - getPaddingBottom(), MeasureSpec.EXACTLY));
-        mCircleView.measure(MeasureSpec.makeMeasureSpec(mCircleDiameter, MeasureSpec.EXACTLY),
-                MeasureSpec.makeMeasureSpec(mCircleDiameter, MeasureSpec.EXACTLY));
-
-        if (!mUseDefaultHeaderView) {
-            if (mHeaderViewContainer.getChildAt(0) != null) {
-                mHeaderViewContainer.getChildAt(0).measure(
-                        MeasureSpec.makeMeasureSpec(getMeasuredWidth() - getPaddingLeft() - getPaddingRight(), MeasureSpec.EXACTLY),
-                        MeasureSpec.makeMeasureSpec(mHeaderViewContainerHeight, MeasureSpec.AT_MOST)
-                );
-                mHeaderViewContainerHeight = mHeaderViewContainer.getChildAt(0).getMeasuredHeight();
-            }
+        final int widthSpec = MeasureSpec.makeMeasureSpec(
+                getMeasuredWidth() - getPaddingLeft() - getPaddingRight(), MeasureSpec.EXACTLY);
+        final int heightSpec = MeasureSpec.makeMeasureSpec(
+                getMeasuredHeight() - getPaddingTop() - getPaddingBottom(), MeasureSpec.EXACTLY);
+        if (mTargetMeasureDirty
+                || widthSpec != mTargetWidthMeasureSpec || heightSpec != mTargetHeightMeasureSpec) {
+            mTarget.measure(widthSpec, heightSpec);
+            mTargetWidthMeasureSpec = widthSpec;
+            mTargetHeightMeasureSpec = heightSpec;
+            mTargetMeasureDirty = false;
+        }
+        if (mHeaderViewContainer != null
+                && (mHeaderMeasureDirty || widthSpec != mHeaderWidthMeasureSpec)) {
+            measureHeaderViewContainer();
+        }
+    }
+
+    private void measureHeaderViewContainer() {
+        final int widthSpec = MeasureSpec.makeMeasureSpec(
+                getMeasuredWidth() - getPaddingLeft() - getPaddingRight(), MeasureSpec.EXACTLY);
+        // The container measures its child in the same single pass
+        if (!mUseDefaultHeaderView && mHeaderViewContainer.getChildCount() > 0) {
+            // A custom header view decides the height, up to the height it was set with
+            mHeaderViewContainer.measure(widthSpec,
+                    MeasureSpec.makeMeasureSpec(mHeaderViewContainerHeight, MeasureSpec.AT_MOST));
+            mHeaderViewContainerHeight = mHeaderViewContainer.getMeasuredHeight();
+        } else {
+            mHeaderViewContainer.measure(widthSpec,
+                    MeasureSpec.makeMeasureSpec(mHeaderViewContainerHeight, MeasureSpec.EXACTLY));
         }
+        mHeaderWidthMeasureSpec = widthSpec;
+        mHeaderMeasureDirty = false;
 
         if (mTotalDragDistance == -1) {
             mTotalDragDistance = mHeaderViewContainerHeight;
@@ -916,29 +1477,10 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
             mSpinnerOffsetEnd = mHeaderViewContainerHeight;
         }
 
-        mHeaderViewContainer.measure(MeasureSpec.makeMeasureSpec(
-                getMeasuredWidth() - getPaddingLeft() - getPaddingRight(), MeasureSpec.EXACTLY),
-                MeasureSpec.makeMeasureSpec(mHeaderViewContainerHeight, MeasureSpec.EXACTLY));
-        mFooterViewContainer.measure(MeasureSpec.makeMeasureSpec(
-                getMeasuredWidth() - getPaddingLeft() - getPaddingRight(),
-                MeasureSpec.EXACTLY),
-                MeasureSpec.makeMeasureSpec(mFooterViewContainerHeight, MeasureSpec.EXACTLY));
-
         if (!mUsingCustomStart && !mOriginalOffsetCalculated) {
             mOriginalOffsetCalculated = true;
             mCurrentTargetOffsetTop = mOriginalOffsetTop = -mHeaderViewContainer.getMeasuredHeight();
         }
-
-        mHeaderViewContainerIndex = -1;
-        mFooterViewContainerIndex = -1;
-        // Get the index of the HeaderView and FooterView.
-        for (int index = 0; index < getChildCount(); index++) {
-            if (getChildAt(index) == mHeaderViewContainer) {
-                mHeaderViewContainerIndex = index;
-            } else if (getChildAt(index) == mFooterViewContainer) {
-                mFooterViewContainerIndex = index;
-            }
-        }
     }
 
     private void notifyPullDistanceChanged() {
@@ -952,6 +1494,62 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         mHeaderScrollTogether = flag;
     }
 
+    /**
+     * Move the header, the footer and the target with translationY instead of offsetting their
+     * bounds. Dragging, settling and load-more completion then never need a layout pass, and
+     * {@link #onLayout(boolean, int, int, int, int)} only places the views at rest.
+     *
+     * @param enabled true to position by translation, false to offset the view bounds (default)
+     */
+    public void setOffsetByTranslation(boolean enabled) {
+        if (mOffsetByTranslation == enabled) {
+            return;
+        }
+        mOffsetByTranslation = enabled;
+        if (mHeaderViewContainer != null) {
+            ViewCompat.setTranslationY(mHeaderViewContainer, 0);
+        }
+        if (mTarget != null) {
+            ViewCompat.setTranslationY(mTarget, 0);
+        }
+        requestLayout();
+    }
+
+    /**
+     * @return Whether the header, footer and target are positioned by translationY.
+     */
+    public boolean isOffsetByTranslation() {
+        return mOffsetByTranslation;
+    }
+
+    /**
+     * @return The current top of the header view container, including its translation.
+     */
+    private int getHeaderViewTop() {
+        if (mHeaderViewContainer == null) {
+            return mCurrentTargetOffsetTop;
+        }
+        if (mOffsetByTranslation) {
+            return mHeaderViewContainer.getTop() + (int) ViewCompat.getTranslationY(mHeaderViewContainer);
+        }
+        return mHeaderViewContainer.getTop();
+    }
+
+    /**
+     * In translation mode, move the target by the header offset when they scroll together and
+     * by the footer push distance.
+     */
+    private void updateTargetTranslation() {
+        if (mTarget == null) {
+            return;
+        }
+        float translationY = -mPushDistance;
+        if (mHeaderScrollTogether && mHeaderViewContainer != null) {
+            translationY += ViewCompat.getTranslationY(mHeaderViewContainer);
+        }
+        ViewCompat.setTranslationY(mTarget, translationY);
+    }
+
     /**
      * Get the diameter of the progress circle that is displayed as part of the
      * swipe to refresh layout.
@@ -1057,6 +1655,82 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
 //        return true;
     }
 
+    /**
+     * Start a new scroll capability snapshot when the event differs from the one the snapshot was
+     * taken for. An event dispatched to both {@link #onInterceptTouchEvent(MotionEvent)} and
+     * {@link #onTouchEvent(MotionEvent)} keeps its snapshot, so that
+     * {@link #isTargetScrollableUp()} and {@link #isTargetScrollableDown()} probe the target at
+     * most once for that event.
+     */
+    private void snapshotScrollCapability(MotionEvent ev) {
+        final long eventTime = ev.getEventTime();
+        final int action = ev.getAction();
+        if (eventTime != mScrollCapabilityEventTime || action != mScrollCapabilityAction) {
+            mScrollCapabilityEventTime = eventTime;
+            mScrollCapabilityAction = action;
+            invalidateScrollCapability();
+        }
+    }
+
+    /**
+     * Forget the scroll capability snapshot, for frame callbacks that run after the target may
+     * have scrolled.
+     */
+    private void invalidateScrollCapability() {
+        mScrollCapability = 0;
+    }
+
+    /**
+     * @return {@link #canChildScrollUp()} for the current touch event. When pull-to-refresh is not
+     * enabled the target is never probed and the top edge is reported as scrollable.
+     */
+    private boolean isTargetScrollableUp() {
+        if (!mCouldPullToRefresh) {
+            return true;
+        }
+        if ((mScrollCapability & SCROLL_CAPABILITY_UP_PROBED) == 0) {
+            mScrollCapability |= SCROLL_CAPABILITY_UP_PROBED;
+            mScrollProbeCount++;
+            if (canChildScrollUp()) {
+                mScrollCapability |= SCROLL_CAPABILITY_UP;
+            }
+        }
+        return (mScrollCapability & SCROLL_CAPABILITY_UP) != 0;
+    }
+
+    /**
+     * @return {@link #canChildScrollDown()} for the current touch event. When push-to-load-more is
+     * not enabled the target is never probed and the bottom edge is reported as scrollable.
+     */
+    private boolean isTargetScrollableDown() {
+        if (!mCouldPushToLoadMore) {
+            return true;
+        }
+        if ((mScrollCapability & SCROLL_CAPABILITY_DOWN_PROBED) == 0) {
+            mScrollCapability |= SCROLL_CAPABILITY_DOWN_PROBED;
+            mScrollProbeCount++;
+            if (canChildScrollDown()) {
+                mScrollCapability |= SCROLL_CAPABILITY_DOWN;
+            }
+        }
+        return (mScrollCapability & SCROLL_CAPABILITY_DOWN) != 0;
+    }
+
+    /**
+     * @return How many times {@link #canChildScrollUp()} or {@link #canChildScrollDown()} has been
+     * evaluated while dispatching touch events since the last {@link #resetScrollProbeCount()}.
+     */
+    public int getScrollProbeCount() {
+        return mScrollProbeCount;
+    }
+
+    /**
+     * Reset the counter returned by {@link #getScrollProbeCount()}.
+     */
+    public void resetScrollProbeCount() {
+        mScrollProbeCount = 0;
+    }
+
     /**
      * Set a callback to override {@link #canChildScrollUp()} method. Non-null
      * callback will return the value provided by the callback and ignore all internal logic.
@@ -1084,17 +1758,23 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         }
 
         ensureTarget();
+        snapshotScrollCapability(ev);
 
         final int action = MotionEventCompat.getActionMasked(ev);
         int pointerIndex;
 
+        if (action == MotionEvent.ACTION_DOWN) {
+            // The finger stops the fling
+            stopFlingWatch();
+        }
+
         if (mReturningToStart && action == MotionEvent.ACTION_DOWN) {
             mReturningToStart = false;
         }
 
         if (!isEnabled()
                 || mReturningToStart
-                || (canChildScrollUp() && canChildScrollDown())
+                || (isTargetScrollableUp() && isTargetScrollableDown())
                 || mLoadingMore
                 || mRefreshing
                 || mNestedScrollInProgress) {
@@ -1104,7 +1784,7 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
 
         switch (action) {
             case MotionEvent.ACTION_DOWN:
-                setTargetOffsetTopAndBottom(mOriginalOffsetTop - mHeaderViewContainer.getTop(), true);
+                setTargetOffsetTopAndBottom(mOriginalOffsetTop - getHeaderViewTop(), true);
                 mActivePointerId = ev.getPointerId(0);
                 mIsBeingDragged = false;
 
@@ -1131,8 +1811,8 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
                 float yDiff = y - mInitialDownY;
 
                 // If the target can scroll, scroll the target first
-                if (yDiff > 0 && canChildScrollUp()
-                        || yDiff < 0 && canChildScrollDown()) {
+                if (yDiff > 0 && isTargetScrollableUp()
+                        || yDiff < 0 && isTargetScrollableDown()) {
                     return false;
                 }
 
@@ -1173,11 +1853,20 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         }
     }
 
+    /**
+     * @return false when there is neither a refresh nor a load-more edge, the layout then passes
+     * every touch and nested scroll through to the target.
+     */
+    private boolean hasEnabledEdge() {
+        return mCouldPullToRefresh || mCouldPushToLoadMore || mHeaderViewContainer != null;
+    }
+
     // NestedScrollingParent
 
     @Override
     public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
         return isEnabled() && !mReturningToStart && !mRefreshing && !mLoadingMore
+                && hasEnabledEdge()
                 && (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
     }
 
@@ -1190,6 +1879,7 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         mTotalUnconsumed = 0;
         mTotalFooterUnconsumed = 0;
         mNestedScrollInProgress = true;
+        stopFlingWatch();
     }
 
     @Override
@@ -1211,6 +1901,8 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
             finishFooterSpinner(mTotalFooterUnconsumed);
             mTotalFooterUnconsumed = 0;
         }
+        cancelSpeculativeRefresh();
+        cancelSpeculativeLoadMore();
         // Dispatch up our nested parent
         stopNestedScroll();
     }
@@ -1251,14 +1943,24 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         // view, they mean to hide it again before scrolling the child view
         // If we get back to mTotalUnconsumed == 0 and there is more to go, hide
         // the circle so it isn't exposed if its blocking content is moved
-        if (mUsingCustomStart && dy > 0 && mTotalUnconsumed == 0
+        if (mHeaderRenderer == null && mUsingCustomStart && dy > 0 && mTotalUnconsumed == 0
                 && Math.abs(dy - consumed[1]) > 0) {
             mCircleView.setVisibility(View.GONE);
         }
     }
 
     private void handleFooterNestedPreScroll(View target, int dx, int dy, int[] consumed) {
-        // no op
+        // If the footer is pushed, retract it before letting the list scroll back
+        if (dy < 0 && mTotalFooterUnconsumed > 0) {
+            if (-dy > mTotalFooterUnconsumed) {
+                consumed[1] = -(int) mTotalFooterUnconsumed;
+                mTotalFooterUnconsumed = 0;
+            } else {
+                mTotalFooterUnconsumed += dy;
+                consumed[1] = dy;
+            }
+            moveFooterSpinner(mTotalFooterUnconsumed);
+        }
     }
 
     @Override
@@ -1301,7 +2003,7 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         final int dy = dyUnconsumed + mParentOffsetInWindow[1];
         if (dy > 0 && !canChildScrollDown()) {
             mTotalFooterUnconsumed += dy;
-            mTotalFooterUnconsumed = mTotalFooterUnconsumed > mFooterViewContainerHeight ? mFooterViewContainerHeight : mTotalFooterUnconsumed;
+            mTotalFooterUnconsumed = mTotalFooterUnconsumed > mFooterHeight ? mFooterHeight : mTotalFooterUnconsumed;
             moveFooterSpinner(mTotalFooterUnconsumed);
         }
     }
@@ -1355,9 +2057,74 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
     @Override
     public boolean onNestedFling(View target, float velocityX, float velocityY,
                                  boolean consumed) {
+        // Only a fling towards the end is followed, a fling never moves the header
+        if (velocityY > 0 && mCouldPushToLoadMore) {
+            startFlingWatch(velocityY);
+        }
         return dispatchNestedFling(velocityX, velocityY, consumed);
     }
 
+    /**
+     * Follow the fling the target starts once the finger is up, until it reaches the end of the
+     * target or runs out. The fling itself does not reach the nested scrolling parent, so the
+     * target is checked once per frame while a fling of that velocity would still be moving.
+     */
+    private void startFlingWatch(float velocityY) {
+        if (mFlingScroller == null) {
+            mFlingScroller = new Scroller(getContext());
+        }
+        mFlingScroller.fling(0, 0, 0, (int) velocityY, 0, 0, 0, Integer.MAX_VALUE);
+        if (!mFlingWatchScheduled) {
+            mFlingWatchScheduled = true;
+            ViewCompat.postOnAnimation(this, mFlingWatchRunnable);
+        }
+    }
+
+    private void stopFlingWatch() {
+        if (mFlingWatchScheduled) {
+            removeCallbacks(mFlingWatchRunnable);
+            mFlingWatchScheduled = false;
+        }
+        if (mFlingScroller != null) {
+            mFlingScroller.abortAnimation();
+        }
+    }
+
+    private void watchFling() {
+        if (!mFlingScroller.computeScrollOffset() || !isEnabled() || !mCouldPushToLoadMore
+                || mRefreshing || mLoadingMore || mIsBeingDragged || mNestedScrollInProgress) {
+            stopFlingWatch();
+            return;
+        }
+
+        invalidateScrollCapability();
+        if (!isTargetScrollableDown()) {
+            // The momentum left when the end is reached carries on into the footer
+            final float velocity = mFlingScroller.getCurrVelocity();
+            stopFlingWatch();
+            loadMoreFromFling(velocity);
+            return;
+        }
+        mFlingWatchScheduled = true;
+        ViewCompat.postOnAnimation(this, mFlingWatchRunnable);
+    }
+
+    private void loadMoreFromFling(float velocity) {
+        ensureFooter();
+        cancelSpeculativeLoadMore();
+        mLoadingMore = true;
+        if (mOnPushToLoadMoreListener != null) {
+            mOnPushToLoadMoreListener.onLoadMore();
+        }
+
+        if (android.os.Build.VERSION.SDK_INT < android.os.Build.VERSION_CODES.HONEYCOMB) {
+            mPushDistance = mFooterHeight;
+            applyPushDistance();
+        } else {
+            animatorFooterToCorrectPosition(velocity);
+        }
+    }
+
     @Override
     public boolean dispatchNestedFling(float velocityX, float velocityY, boolean consumed) {
         return mNestedScrollingChildHelper.dispatchNestedFling(velocityX, velocityY, consumed);
@@ -1368,34 +2135,44 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         return mNestedScrollingChildHelper.dispatchNestedPreFling(velocityX, velocityY);
     }
 
-    private boolean isAnimationRunning(Animation animation) {
-        return animation != null && animation.hasStarted() && !animation.hasEnded();
+    private void moveSpinner(float overScrollTop) {
+        moveSpinner(overScrollTop, overScrollTop);
     }
 
-    private void moveSpinner(float overScrollTop) {
-        mProgress.showArrow(true);
+    /**
+     * @param overScrollTop         pulled distance the pull state and the listeners are based on
+     * @param renderedOverScrollTop pulled distance the header is drawn at, a predicted one
+     */
+    private void moveSpinner(float overScrollTop, float renderedOverScrollTop) {
+        ensureHeader();
 
-        float originalDragPercent = overScrollTop / mTotalDragDistance;
-        float dragPercent = Math.min(1f, Math.abs(originalDragPercent));
-        float adjustedPercent = (float) Math.max(dragPercent - .4, 0) * 5 / 3;
-        float extraOS = Math.abs(overScrollTop) - mTotalDragDistance;
-        float slingshotDist = mUsingCustomStart ? mSpinnerOffsetEnd - mOriginalOffsetTop
-                : mSpinnerOffsetEnd;
-        // make sure the pulling distance is no more than mMaxPullAbleDistance
-        if (mMaxPullAbleDistance != -1) {
-            slingshotDist = mMaxPullAbleDistance / 2;
-        }
-        float tensionSlingshotPercent = Math.max(0, Math.min(extraOS, slingshotDist * 2)
-                / slingshotDist);
-        float tensionPercent = (float) ((tensionSlingshotPercent / 4) - Math.pow(
-                (tensionSlingshotPercent / 4), 2)) * 2f;
-        float extraMove = (slingshotDist) * tensionPercent * 2;
-        int targetY = mOriginalOffsetTop + (int) ((slingshotDist * dragPercent) + extraMove);
+        int targetY = getSpinnerTargetY(renderedOverScrollTop);
 
-        // where 1.0f is a full circle
         if (mHeaderViewContainer.getVisibility() != View.VISIBLE) {
             mHeaderViewContainer.setVisibility(View.VISIBLE);
         }
+        // A header renderer draws its own progress from the pull fraction
+        if (mHeaderRenderer == null) {
+            updateSpinnerProgress(renderedOverScrollTop);
+        }
+
+        int distance = (overScrollTop == renderedOverScrollTop ? targetY
+                : getSpinnerTargetY(overScrollTop)) - mOriginalOffsetTop;
+        if (distance < mTotalDragDistance) {
+            if (mOnPullToRefreshListener != null) {
+                mOnPullToRefreshListener.onPullEnable(false);
+            }
+        } else {
+            if (mOnPullToRefreshListener != null) {
+                mOnPullToRefreshListener.onPullEnable(true);
+            }
+        }
+        dispatchSpeculativeRefresh(overScrollTop / mTotalDragDistance);
+
+        setTargetOffsetTopAndBottom(targetY - mCurrentTargetOffsetTop, true /* requires update */);
+    }
+
+    private void updateSpinnerProgress(float overScrollTop) {
         if (!mScale) {
             ViewCompat.setScaleX(mCircleView, 1f);
             ViewCompat.setScaleY(mCircleView, 1f);
@@ -1406,101 +2183,164 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         }
         if (overScrollTop < mTotalDragDistance) {
             if (mProgress.getAlpha() > STARTING_PROGRESS_ALPHA
-                    && !isAnimationRunning(mAlphaStartAnimation)) {
+                    && !mTransitionAnimator.isRunning(TransitionAnimator.CHANNEL_SPINNER, TRANSITION_ALPHA_START)) {
                 // Animate the alpha
                 startProgressAlphaStartAnimation();
             }
         } else {
-            if (mProgress.getAlpha() < MAX_ALPHA && !isAnimationRunning(mAlphaMaxAnimation)) {
+            if (mProgress.getAlpha() < MAX_ALPHA
+                    && !mTransitionAnimator.isRunning(TransitionAnimator.CHANNEL_SPINNER, TRANSITION_ALPHA_MAX)) {
                 // Animate the alpha
                 startProgressAlphaMaxAnimation();
             }
         }
-        float strokeStart = adjustedPercent * .8f;
-        mProgress.setStartEndTrim(0f, Math.min(MAX_PROGRESS_ANGLE, strokeStart));
-        mProgress.setArrowScale(Math.min(1f, adjustedPercent));
 
-        float rotation = (-0.25f + .4f * adjustedPercent + tensionPercent * 2) * .5f;
-        mProgress.setProgressRotation(rotation);
+        float dragPercent = Math.min(1f, Math.abs(overScrollTop / mTotalDragDistance));
+        SpinnerFeedback.applyPull(mProgress, dragPercent, getTensionPercent(overScrollTop));
+    }
 
-        int distance = targetY - mOriginalOffsetTop;
-        if (distance < mTotalDragDistance) {
-            if (mOnPullToRefreshListener != null) {
-                mOnPullToRefreshListener.onPullEnable(false);
-            }
-        } else {
-            if (mOnPullToRefreshListener != null) {
-                mOnPullToRefreshListener.onPullEnable(true);
-            }
+    private float getSlingshotDistance() {
+        // make sure the pulling distance is no more than mMaxPullAbleDistance
+        if (mMaxPullAbleDistance != -1) {
+            return mMaxPullAbleDistance / 2;
         }
+        return mUsingCustomStart ? mSpinnerOffsetEnd - mOriginalOffsetTop : mSpinnerOffsetEnd;
+    }
 
-        setTargetOffsetTopAndBottom(targetY - mCurrentTargetOffsetTop, true /* requires update */);
+    private float getTensionPercent(float overScrollTop) {
+        float slingshotDist = getSlingshotDistance();
+        float extraOS = Math.abs(overScrollTop) - mTotalDragDistance;
+        float tensionSlingshotPercent = Math.max(0, Math.min(extraOS, slingshotDist * 2)
+                / slingshotDist);
+        return SpinnerFeedback.getTensionPercent(tensionSlingshotPercent);
+    }
+
+    /**
+     * @return The top of the header for a pulled distance, with the tension past the trigger.
+     */
+    private int getSpinnerTargetY(float overScrollTop) {
+        float dragPercent = Math.min(1f, Math.abs(overScrollTop / mTotalDragDistance));
+        float slingshotDist = getSlingshotDistance();
+        float extraMove = (slingshotDist) * getTensionPercent(overScrollTop) * 2;
+        return mOriginalOffsetTop + (int) ((slingshotDist * dragPercent) + extraMove);
     }
 
     private void finishSpinner(float overscrollTop) {
-        if (overscrollTop > mTotalDragDistance) {
+        finishSpinner(overscrollTop, 0);
+    }
+
+    /**
+     * @param velocityY velocity of the finger when released in pixels per second, positive downward
+     */
+    private void finishSpinner(float overscrollTop, float velocityY) {
+        // The header follows the finger at the drag rate
+        mReleaseVelocity = velocityY * mHeaderDragRate;
+        final boolean fling = mFlingTriggerVelocity > 0 && velocityY >= mFlingTriggerVelocity;
+        if (overscrollTop > mTotalDragDistance || fling) {
+            // The speculative refresh, if any, turns into the real one
+            mSpeculativeRefreshDispatched = false;
             setRefreshing(true, true /* notify */);
         } else {
             // cancel refresh
+            cancelSpeculativeRefresh();
             mRefreshing = false;
-            mProgress.setStartEndTrim(0f, 0f);
-            Animation.AnimationListener listener = null;
-            if (!mScale) {
-                listener = new Animation.AnimationListener() {
+            if (mHeaderRenderer == null) {
+                mProgress.setStartEndTrim(0f, 0f);
+                mProgress.showArrow(false);
+            }
+            animateOffsetToStartPosition(mCurrentTargetOffsetTop,
+                    mScale ? mRefreshListener : mScaleDownListener);
+        }
+        mReleaseVelocity = 0;
+    }
 
-                    @Override
-                    public void onAnimationStart(Animation animation) {
-                    }
+    private void dispatchSpeculativeRefresh(float dragPercent) {
+        if (!mSpeculativeRefreshDispatched && dragPercent >= mSpeculativeRefreshFraction
+                && mOnPullToRefreshListener instanceof OnSpeculativePullToRefreshListener) {
+            mSpeculativeRefreshDispatched = true;
+            ((OnSpeculativePullToRefreshListener) mOnPullToRefreshListener).onSpeculativeRefresh();
+        }
+    }
 
-                    @Override
-                    public void onAnimationEnd(Animation animation) {
-                        if (!mScale) {
-                            startScaleDownAnimation(null);
-                        }
-                    }
+    private void cancelSpeculativeRefresh() {
+        if (mSpeculativeRefreshDispatched) {
+            mSpeculativeRefreshDispatched = false;
+            if (mOnPullToRefreshListener instanceof OnSpeculativePullToRefreshListener) {
+                ((OnSpeculativePullToRefreshListener) mOnPullToRefreshListener).onSpeculativeRefreshCancel();
+            }
+        }
+    }
 
-                    @Override
-                    public void onAnimationRepeat(Animation animation) {
-                    }
+    private void dispatchSpeculativeLoadMore(float pushPercent) {
+        if (!mSpeculativeLoadMoreDispatched && pushPercent >= mSpeculativeLoadMoreFraction
+                && mOnPushToLoadMoreListener instanceof OnSpeculativePushToLoadMoreListener) {
+            mSpeculativeLoadMoreDispatched = true;
+            ((OnSpeculativePushToLoadMoreListener) mOnPushToLoadMoreListener).onSpeculativeLoadMore();
+        }
+    }
 
-                };
+    private void cancelSpeculativeLoadMore() {
+        if (mSpeculativeLoadMoreDispatched) {
+            mSpeculativeLoadMoreDispatched = false;
+            if (mOnPushToLoadMoreListener instanceof OnSpeculativePushToLoadMoreListener) {
+                ((OnSpeculativePushToLoadMoreListener) mOnPushToLoadMoreListener).onSpeculativeLoadMoreCancel();
             }
-            animateOffsetToStartPosition(mCurrentTargetOffsetTop, listener);
-            mProgress.showArrow(false);
         }
     }
 
     private void moveFooterSpinner(float overScrollBottom) {
-        overScrollBottom = overScrollBottom > mFooterViewContainerHeight ? mFooterViewContainerHeight : overScrollBottom;
-        mPushDistance = (int) overScrollBottom;
+        moveFooterSpinner(overScrollBottom, overScrollBottom);
+    }
 
-        if (mFooterViewContainer.getVisibility() != VISIBLE) {
-            mFooterViewContainer.setVisibility(View.VISIBLE);
-        }
+    /**
+     * @param overScrollBottom         pushed distance the push state and the listeners are based on
+     * @param renderedOverScrollBottom pushed distance the footer is drawn at, a predicted one
+     */
+    private void moveFooterSpinner(float overScrollBottom, float renderedOverScrollBottom) {
+        ensureFooter();
+        overScrollBottom = overScrollBottom > mFooterHeight ? mFooterHeight : overScrollBottom;
+        renderedOverScrollBottom = Math.max(0,
+                renderedOverScrollBottom > mFooterHeight ? mFooterHeight : renderedOverScrollBottom);
+        mPushDistance = (int) renderedOverScrollBottom;
 
         if (mOnPushToLoadMoreListener != null) {
-            mOnPushToLoadMoreListener.onPushEnable(mPushDistance >= mFooterViewContainerHeight);
+            mOnPushToLoadMoreListener.onPushEnable(overScrollBottom >= mFooterHeight);
         }
+        dispatchSpeculativeLoadMore(overScrollBottom / mFooterHeight);
 
-        setFooterOffsetTopAndBottom(-mPushDistance, true);
+        applyPushDistance();
     }
 
     private void finishFooterSpinner(float overScrollBottom) {
-        overScrollBottom = overScrollBottom > mFooterViewContainerHeight ? mFooterViewContainerHeight : overScrollBottom;
+        finishFooterSpinner(overScrollBottom, 0);
+    }
+
+    /**
+     * Any push loads more, the release velocity only shapes the settle animation.
+     *
+     * @param velocity velocity of the footer when released in pixels per second, positive upward
+     */
+    private void finishFooterSpinner(float overScrollBottom, float velocity) {
+        overScrollBottom = overScrollBottom > mFooterHeight ? mFooterHeight : overScrollBottom;
         if (overScrollBottom > 0 && mCouldPushToLoadMore) {
-            mPushDistance = mFooterViewContainerHeight;
+            // The speculative load-more, if any, turns into the real one
+            mSpeculativeLoadMoreDispatched = false;
             mLoadingMore = true;
             if (mOnPushToLoadMoreListener != null) {
                 mOnPushToLoadMoreListener.onLoadMore();
             }
         } else {
-            mPushDistance = 0;
+            cancelSpeculativeLoadMore();
         }
 
         if (android.os.Build.VERSION.SDK_INT < android.os.Build.VERSION_CODES.HONEYCOMB) {
-            setFooterOffsetTopAndBottom(-mPushDistance, true);
+            mPushDistance = mLoadingMore ? mFooterHeight : 0;
+            applyPushDistance();
+        } else if (mLoadingMore) {
+            // Settle from where the footer was released
+            animatorFooterToCorrectPosition(velocity);
         } else {
-            animatorFooterToCorrectPosition();
+            animatorFooterToStartPosition();
         }
     }
 
@@ -1511,6 +2351,8 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
             return true;
         }
 
+        snapshotScrollCapability(ev);
+
         final int action = MotionEventCompat.getActionMasked(ev);
 
         if (mReturningToStart && action == MotionEvent.ACTION_DOWN) {
@@ -1519,7 +2361,7 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
 
         if (!isEnabled()
                 || mReturningToStart
-                || (canChildScrollUp() && canChildScrollDown())
+                || (isTargetScrollableUp() && isTargetScrollableDown())
                 || mLoadingMore
                 || mRefreshing
                 || mNestedScrollInProgress) {
@@ -1550,6 +2392,7 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
             case MotionEvent.ACTION_DOWN:
                 mActivePointerId = ev.getPointerId(0);
                 mIsBeingDragged = false;
+                cancelPendingDrag();
                 break;
 
             case MotionEvent.ACTION_MOVE: {
@@ -1559,19 +2402,10 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
                     return false;
                 }
 
-                final float y = ev.getY(pointerIndex);
                 if (mIsBeingDragged) {
-
-                    final float overScrollTop = (y - mInitialMotionY) * mHeaderDragRate;
-                    if (mCouldPullToRefresh && !canChildScrollUp() && overScrollTop > 0) {
-                        moveSpinner(overScrollTop);
-                        break;
-                    }
-
-                    float overScrollBottom = (mInitialMotionY - y) * mFooterDragRate;
-                    if (mCouldPushToLoadMore && !canChildScrollDown() && overScrollBottom > 0) {
-                        moveFooterSpinner(overScrollBottom);
-                    }
+                    // Several MOVE events may arrive per frame, only the latest position is applied
+                    mDragSampler.add(ev, pointerIndex);
+                    scheduleDrag();
                 }
 
                 break;
@@ -1579,11 +2413,14 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
             case MotionEventCompat.ACTION_POINTER_DOWN: {
                 final int index = ev.getActionIndex();
                 mActivePointerId = ev.getPointerId(index);
+                // Do not mix the samples of two pointers
+                mDragSampler.clear();
                 break;
             }
 
             case MotionEventCompat.ACTION_POINTER_UP: {
                 onSecondaryPointerUp(ev);
+                mDragSampler.clear();
                 break;
             }
 
@@ -1595,50 +2432,135 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
                 }
 
                 if (mIsBeingDragged) {
+                    // The finish animations start from the position of the last frame
+                    flushPendingDrag();
+                    mDragSampler.add(ev, pointerIndex);
+                    // In pixels per second, positive downward
+                    final float velocityY = mDragSampler.getVelocity() * 1000;
+
                     final float y = ev.getY(pointerIndex);
                     final float overScrollTop = (y - mInitialMotionY) * mHeaderDragRate;
                     if (mCouldPullToRefresh && overScrollTop > 0) {
-                        finishSpinner(overScrollTop);
+                        finishSpinner(overScrollTop, velocityY);
                     }
 
-                    float overScrollBottom = (mInitialMotionY - y) * DRAG_RATE;
+                    float overScrollBottom = (mInitialMotionY - y) * mFooterDragRate;
                     if (mCouldPushToLoadMore && overScrollBottom > 0) {
-                        finishFooterSpinner(overScrollBottom);
+                        finishFooterSpinner(overScrollBottom, -velocityY * mFooterDragRate);
                     }
 
+                    // Released back behind the starting point
+                    cancelSpeculativeRefresh();
+                    cancelSpeculativeLoadMore();
+
                     mIsBeingDragged = false;
                 }
-
+                cancelPendingDrag();
 
                 mActivePointerId = INVALID_POINTER;
                 return false;
             }
 
             case MotionEvent.ACTION_CANCEL:
+                cancelPendingDrag();
+                // Retract a footer left half pushed by a cancelled gesture
+                if (mIsBeingDragged && !mLoadingMore && mPushDistance > 0) {
+                    animatorFooterToStartPosition();
+                }
+                cancelSpeculativeRefresh();
+                cancelSpeculativeLoadMore();
+                mIsBeingDragged = false;
                 return false;
         }
 
         return true;
     }
 
+    private void scheduleDrag() {
+        if (!mDragApplyScheduled) {
+            mDragApplyScheduled = true;
+            ViewCompat.postOnAnimation(this, mApplyDragRunnable);
+        }
+    }
+
+    /**
+     * Apply a drag recorded but not applied yet right away. A predicted position is replaced by the
+     * reported one as well, the finish animations must start from where the finger actually is.
+     */
+    private void flushPendingDrag() {
+        if (mDragApplyScheduled || mTouchPredictionEnabled) {
+            removeCallbacks(mApplyDragRunnable);
+            mDragApplyScheduled = false;
+            applyDrag(false);
+        }
+    }
+
+    private void cancelPendingDrag() {
+        if (mDragApplyScheduled) {
+            removeCallbacks(mApplyDragRunnable);
+            mDragApplyScheduled = false;
+        }
+        mDragSampler.clear();
+    }
 
     /**
-     * 修改底部布局的位置，敏感pushDistance
+     * Move the header or the footer to the newest pointer position, once per frame.
+     *
+     * @param predict true to draw them at the predicted position, see
+     *                {@link #setTouchPredictionEnabled(boolean)}
      */
-    private void setFooterOffsetTopAndBottom(int offset, boolean requiresUpdate) {
-        mFooterViewContainer.bringToFront();
+    private void applyDrag(boolean predict) {
+        if (!mIsBeingDragged || mDragSampler.isEmpty() || mRefreshing || mLoadingMore) {
+            return;
+        }
+        // The target may have scrolled since the event was recorded
+        invalidateScrollCapability();
 
-        ViewCompat.offsetTopAndBottom(mFooterViewContainer, offset);
-//        if (mTarget != null) {
-//            ViewCompat.offsetTopAndBottom(mTarget, offset);
-//        }
+        final float y = mDragSampler.getLatestY();
+        final float renderedY = predict ? predictDragY() : y;
+        final float overScrollTop = (y - mInitialMotionY) * mHeaderDragRate;
+        if (mCouldPullToRefresh && !isTargetScrollableUp() && overScrollTop > 0) {
+            float renderedOverScrollTop = Math.max(0, (renderedY - mInitialMotionY) * mHeaderDragRate);
+            moveSpinner(overScrollTop, renderedOverScrollTop);
+            return;
+        }
 
-        if (requiresUpdate && android.os.Build.VERSION.SDK_INT < 11) {
-            invalidate();
+        float overScrollBottom = (mInitialMotionY - y) * mFooterDragRate;
+        if (mCouldPushToLoadMore && !isTargetScrollableDown() && overScrollBottom > 0) {
+            moveFooterSpinner(overScrollBottom, (mInitialMotionY - renderedY) * mFooterDragRate);
+        }
+    }
+
+    /**
+     * @return The pointer extrapolated to the display of the frame being prepared.
+     */
+    private float predictDragY() {
+        final float frameInterval = DeviceProfile.getFrameInterval(getContext());
+        final long displayTime = AnimationUtils.currentAnimationTimeMillis() + (long) frameInterval;
+        return mDragSampler.predictY(displayTime);
+    }
+
+    /**
+     * 修改底部布局的位置，敏感pushDistance
+     * <p>
+     * Move the footer and the target to {@link #mPushDistance}.
+     */
+    private void applyPushDistance() {
+        // The footer is drawn from mPushDistance
+        invalidate();
+
+        if (mOffsetByTranslation) {
+            // The target always follows mPushDistance
+            updateTargetTranslation();
+            notifyPushDistanceChanged();
+            return;
         }
 
-        if (android.os.Build.VERSION.SDK_INT < android.os.Build.VERSION_CODES.KITKAT) {
-            requestLayout();
+        // Move the target by the change of the push distance rather than laying it out again,
+        // onLayout() places it at the same position
+        if (mTarget != null && mTargetPushDistance != mPushDistance) {
+            ViewCompat.offsetTopAndBottom(mTarget, mTargetPushDistance - mPushDistance);
+            mTargetPushDistance = mPushDistance;
         }
 
         notifyPushDistanceChanged();
@@ -1654,10 +2576,13 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
     private void startDragging(float y) {
         final float yDiff = y - mInitialDownY;
         if (Math.abs(yDiff) > mTouchSlop && !mIsBeingDragged) {
-            if (yDiff > 0 && !canChildScrollUp()) {
+            if (yDiff > 0 && !isTargetScrollableUp()) {
                 mInitialMotionY = mInitialDownY + mTouchSlop;
-                mProgress.setAlpha(STARTING_PROGRESS_ALPHA);
-            } else if (yDiff < 0 && !canChildScrollDown()) {
+                ensureHeader();
+                if (mHeaderRenderer == null) {
+                    mProgress.setAlpha(STARTING_PROGRESS_ALPHA);
+                }
+            } else if (yDiff < 0 && !isTargetScrollableDown()) {
                 mInitialMotionY = mInitialDownY - mTouchSlop;
             }
 
@@ -1665,158 +2590,163 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         }
     }
 
-    private void animateOffsetToCorrectPosition(int from, Animation.AnimationListener listener) {
+    private void animateOffsetToCorrectPosition(int from, TransitionAnimator.Listener listener) {
         mFrom = from;
-        mAnimateToCorrectPosition.reset();
-        mAnimateToCorrectPosition.setDuration(ANIMATE_TO_TRIGGER_DURATION);
-        mAnimateToCorrectPosition.setInterpolator(mDecelerateInterpolator);
-        if (listener != null) {
-            mHeaderViewContainer.setAnimationListener(listener);
-            mCircleView.setAnimationListener(listener);
+        // A header still settling keeps its momentum, the release velocity starts a new one
+        mTransitionAnimator.startSpring(TransitionAnimator.CHANNEL_HEADER, TRANSITION_MOVE_TO_CORRECT,
+                from, getSpinnerEndTarget(), mReleaseVelocity, listener);
+    }
+
+    /**
+     * Set the spring the header and the footer settle with once released, and when the refreshing
+     * or loading state changes. A settle interrupted by a new target carries on from its current
+     * position and velocity. Defaults to a stiffness of 600 and a damping ratio of 1.
+     *
+     * @param stiffness    stiffness of the spring, higher settles faster
+     * @param dampingRatio damping ratio of the spring, 1 settles without overshoot, lower bounces
+     */
+    public void setSettleSpring(float stiffness, float dampingRatio) {
+        if (stiffness <= 0 || dampingRatio <= 0) {
+            return;
         }
-        mHeaderViewContainer.clearAnimation();
-        mHeaderViewContainer.startAnimation(mAnimateToCorrectPosition);
-//        mCircleView.clearAnimation();
-//        mCircleView.startAnimation(mAnimateToCorrectPosition);
+        mTransitionAnimator.setSpring(stiffness, dampingRatio);
     }
 
-    private void animateOffsetToStartPosition(int from, Animation.AnimationListener listener) {
+    private void animateOffsetToStartPosition(int from, TransitionAnimator.Listener listener) {
         if (mScale) {
             // Scale the item back down
             startScaleDownReturnToStartAnimation(from, listener);
         } else {
             mFrom = from;
-            mAnimateToStartPosition.reset();
-            mAnimateToStartPosition.setDuration(ANIMATE_TO_START_DURATION);
-            mAnimateToStartPosition.setInterpolator(mDecelerateInterpolator);
-            if (listener != null) {
-                mCircleView.setAnimationListener(listener);
-                mHeaderViewContainer.setAnimationListener(listener);
-            }
-            mHeaderViewContainer.clearAnimation();
-            mHeaderViewContainer.startAnimation(mAnimateToStartPosition);
-//            mCircleView.clearAnimation();
-//            mCircleView.startAnimation(mAnimateToStartPosition);
+            mTransitionAnimator.startSpring(TransitionAnimator.CHANNEL_HEADER, TRANSITION_MOVE_TO_START,
+                    from, mOriginalOffsetTop, mReleaseVelocity, listener);
         }
     }
 
-    private final Animation mAnimateToCorrectPosition = new Animation() {
-        @Override
-        public void applyTransformation(float interpolatedTime, Transformation t) {
-            int targetTop = 0;
-            int endTarget = 0;
-            if (!mUsingCustomStart) {
-                endTarget = mSpinnerOffsetEnd - Math.abs(mOriginalOffsetTop);
-            } else {
-                endTarget = mSpinnerOffsetEnd;
-            }
-            targetTop = (mFrom + (int) ((endTarget - mFrom) * interpolatedTime));
-            int offset = targetTop - mHeaderViewContainer.getTop();
-            setTargetOffsetTopAndBottom(offset, false /* requires update */);
-            mProgress.setArrowScale(1 - interpolatedTime);
+    private int getSpinnerEndTarget() {
+        if (!mUsingCustomStart) {
+            return mSpinnerOffsetEnd - Math.abs(mOriginalOffsetTop);
+        } else {
+            return mSpinnerOffsetEnd;
         }
-    };
+    }
+
+    private void moveToCorrectPosition(float top) {
+        setTargetOffsetTopAndBottom(Math.round(top) - getHeaderViewTop(), false /* requires update */);
+        if (mHeaderRenderer == null) {
+            mProgress.setArrowScale(1 - getSettleFraction(top, getSpinnerEndTarget()));
+        }
+    }
 
-    void moveToStart(float interpolatedTime) {
-        int targetTop = 0;
-        targetTop = (mFrom + (int) ((mOriginalOffsetTop - mFrom) * interpolatedTime));
-        int offset = targetTop - mHeaderViewContainer.getTop();
-        setTargetOffsetTopAndBottom(offset, false /* requires update */);
+    void moveToStart(float top) {
+        setTargetOffsetTopAndBottom(Math.round(top) - getHeaderViewTop(), false /* requires update */);
     }
 
-    private final Animation mAnimateToStartPosition = new Animation() {
-        @Override
-        public void applyTransformation(float interpolatedTime, Transformation t) {
-            moveToStart(interpolatedTime);
+    /**
+     * @return How far the header has settled from {@link #mFrom} to the target, from 0 to 1.
+     */
+    private float getSettleFraction(float top, int target) {
+        if (target == mFrom) {
+            return 1f;
         }
-    };
+        return Math.max(0f, Math.min(1f, (top - mFrom) / (target - mFrom)));
+    }
 
     @SuppressLint("NewApi")
     private void startScaleDownReturnToStartAnimation(int from,
-                                                      Animation.AnimationListener listener) {
+                                                      TransitionAnimator.Listener listener) {
         mFrom = from;
-        if (isAlphaUsedForScale()) {
+        if (mHeaderRenderer != null) {
+            // Not applied, see setAnimationProgress(float)
+            mStartingScale = 1f;
+        } else if (isAlphaUsedForScale()) {
             mStartingScale = mProgress.getAlpha();
         } else {
             mStartingScale = ViewCompat.getScaleX(mCircleView);
         }
-        mScaleDownToStartAnimation = new Animation() {
-            @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                float targetScale = (mStartingScale + (-mStartingScale * interpolatedTime));
+        // The scale follows the header, which now drives the transition
+        mTransitionAnimator.cancel(TransitionAnimator.CHANNEL_SPINNER);
+        mTransitionAnimator.startSpring(TransitionAnimator.CHANNEL_HEADER, TRANSITION_SCALE_DOWN_TO_START,
+                from, mOriginalOffsetTop, mReleaseVelocity, listener);
+    }
+
+    /**
+     * Apply one frame of a transition started on {@link #mTransitionAnimator}.
+     */
+    @SuppressLint("NewApi")
+    private void onTransitionUpdate(int transition, float interpolatedTime) {
+        switch (transition) {
+            case TRANSITION_SCALE_UP:
+                setAnimationProgress(interpolatedTime);
+                break;
+            case TRANSITION_SCALE_DOWN:
+                setAnimationProgress(1 - interpolatedTime);
+                break;
+            case TRANSITION_ALPHA_START:
+            case TRANSITION_ALPHA_MAX:
+                mProgress.setAlpha((int) (mAlphaFrom + ((mAlphaTo - mAlphaFrom) * interpolatedTime)));
+                break;
+        }
+    }
+
+    /**
+     * Apply one frame of a spring started on {@link #mTransitionAnimator}.
+     */
+    private void onSpringUpdate(int transition, float value) {
+        switch (transition) {
+            case TRANSITION_MOVE_TO_CORRECT:
+                moveToCorrectPosition(value);
+                break;
+            case TRANSITION_MOVE_TO_START:
+                moveToStart(value);
+                break;
+            case TRANSITION_SCALE_DOWN_TO_START:
+                float targetScale = mStartingScale * (1 - getSettleFraction(value, mOriginalOffsetTop));
                 setAnimationProgress(targetScale);
-                moveToStart(interpolatedTime);
-            }
-        };
-        mScaleDownToStartAnimation.setDuration(SCALE_DOWN_DURATION);
-        if (listener != null) {
-            mCircleView.setAnimationListener(listener);
+                moveToStart(value);
+                break;
+            case TRANSITION_FOOTER_TO_CORRECT:
+            case TRANSITION_FOOTER_TO_START:
+                mPushDistance = Math.round(value);
+                applyPushDistance();
+                break;
         }
-        mCircleView.clearAnimation();
-        mCircleView.startAnimation(mScaleDownToStartAnimation);
     }
 
     void setTargetOffsetTopAndBottom(int offset, boolean requiresUpdate) {
-        mHeaderViewContainer.bringToFront();
-        ViewCompat.offsetTopAndBottom(mHeaderViewContainer, offset);
+        if (mHeaderViewContainer == null) {
+            return;
+        }
+        if (mOffsetByTranslation) {
+            ViewCompat.setTranslationY(mHeaderViewContainer,
+                    ViewCompat.getTranslationY(mHeaderViewContainer) + offset);
+            updateTargetTranslation();
+        } else {
+            ViewCompat.offsetTopAndBottom(mHeaderViewContainer, offset);
 
-        if (mHeaderScrollTogether && mTarget != null) {
-            ViewCompat.offsetTopAndBottom(mTarget, offset);
+            if (mHeaderScrollTogether && mTarget != null) {
+                ViewCompat.offsetTopAndBottom(mTarget, offset);
+            }
         }
 
-        mCurrentTargetOffsetTop = mHeaderViewContainer.getTop();
+        mCurrentTargetOffsetTop = getHeaderViewTop();
 
-        if (requiresUpdate && android.os.Build.VERSION.SDK_INT < 11) {
+        if (mHeaderRenderer != null || (requiresUpdate && android.os.Build.VERSION.SDK_INT < 11)) {
             invalidate();
         }
 
-        if (android.os.Build.VERSION.SDK_INT < android.os.Build.VERSION_CODES.KITKAT) {
-            requestLayout();
-        }
-
         notifyPullDistanceChanged();
     }
 
-    private void animatorFooterToCorrectPosition() {
-        ValueAnimator valueAnimator = ValueAnimator.ofInt(mPushDistance, mFooterViewContainerHeight);
-        valueAnimator.setDuration(150);
-        valueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                mPushDistance = (Integer) valueAnimator.getAnimatedValue();
-                setFooterOffsetTopAndBottom(-mPushDistance, false);
-            }
-        });
-        valueAnimator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationStart(Animator animation) {
-                mLoadingMore = true;
-            }
-        });
-        valueAnimator.setInterpolator(mDecelerateInterpolator);
-        valueAnimator.start();
+    private void animatorFooterToCorrectPosition(float velocity) {
+        mLoadingMore = true;
+        mTransitionAnimator.startSpring(TransitionAnimator.CHANNEL_FOOTER, TRANSITION_FOOTER_TO_CORRECT,
+                mPushDistance, mFooterHeight, velocity, null);
     }
 
     private void animatorFooterToStartPosition() {
-        ValueAnimator valueAnimator = ValueAnimator.ofInt(mFooterViewContainerHeight, 0);
-        valueAnimator.setDuration(150);
-        valueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                mPushDistance = (Integer) valueAnimator.getAnimatedValue();
-                setFooterOffsetTopAndBottom(-mPushDistance, false);
-            }
-        });
-        valueAnimator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                mLoadingMore = false;
-                requestLayout();
-            }
-        });
-        valueAnimator.setInterpolator(mDecelerateInterpolator);
-        valueAnimator.start();
+        mTransitionAnimator.startSpring(TransitionAnimator.CHANNEL_FOOTER, TRANSITION_FOOTER_TO_START,
+                mPushDistance, 0, 0, mFooterReturnListener);
     }
 
     private void onSecondaryPointerUp(MotionEvent ev) {
@@ -1871,6 +2801,101 @@ public class AdvancedSwipeRefreshLayout extends ViewGroup implements NestedScrol
         void onPushEnable(boolean enable);
     }
 
+    /**
+     * Pull-to-refresh callback that may start fetching before the pull is released.
+     */
+    public interface OnSpeculativePullToRefreshListener extends OnPullToRefreshListener {
+        /**
+         * Called at most once per gesture, when the pull passes the speculative fraction of the
+         * trigger distance, see {@link #setSpeculativeRefreshFraction(float)}. It is followed by
+         * either {@link #onRefresh()} or {@link #onSpeculativeRefreshCancel()}.
+         */
+        void onSpeculativeRefresh();
+
+        /**
+         * Called when the gesture that dispatched {@link #onSpeculativeRefresh()} ends without
+         * triggering a refresh.
+         */
+        void onSpeculativeRefreshCancel();
+    }
+
+    /**
+     * Push-to-load-more callback that may start loading before the push is released.
+     */
+    public interface OnSpeculativePushToLoadMoreListener extends OnPushToLoadMoreListener {
+        /**
+         * Called at most once per gesture, when the push passes the speculative fraction of the
+         * footer height, see {@link #setSpeculativeLoadMoreFraction(float)}. It is followed by
+         * either {@link #onLoadMore()} or {@link #onSpeculativeLoadMoreCancel()}.
+         */
+        void onSpeculativeLoadMore();
+
+        /**
+         * Called when the gesture that dispatched {@link #onSpeculativeLoadMore()} ends without
+         * triggering a load-more.
+         */
+        void onSpeculativeLoadMoreCancel();
+    }
+
+    /**
+     * Draws the pull-to-refresh header directly on the canvas of the layout, see
+     * {@link #setHeaderRenderer(HeaderRenderer)}.
+     */
+    public interface HeaderRenderer {
+        /** The header is at rest **/
+        int STATE_IDLE = 0;
+        /** The header is pulled, releasing would not trigger a refresh **/
+        int STATE_PULLING = 1;
+        /** The header is pulled past the distance to trigger a refresh **/
+        int STATE_RELEASE_TO_REFRESH = 2;
+        /** The layout is refreshing **/
+        int STATE_REFRESHING = 3;
+
+        /**
+         * @return Height of the header in pixels.
+         */
+        int getHeight();
+
+        /**
+         * Draw the header.
+         *
+         * @param canvas       Canvas of the layout, translated to the top left corner of the header
+         *                     and clipped to it
+         * @param width        Width of the header in pixels
+         * @param pullFraction Pulled distance divided by the distance to trigger a refresh, more
+         *                     than 1 past the trigger point
+         * @param state        One of {@link #STATE_IDLE}, {@link #STATE_PULLING},
+         *                     {@link #STATE_RELEASE_TO_REFRESH} or {@link #STATE_REFRESHING}
+         * @param drawingTime  Drawing time of this frame in milliseconds
+         * @return true to be drawn again on the next frame, e.g. while animating
+         */
+        boolean draw(Canvas canvas, int width, float pullFraction, int state, long drawingTime);
+    }
+
+    /**
+     * Draws the push-to-load-more footer directly on the canvas of the layout, see
+     * {@link #setFooterRenderer(FooterRenderer)}.
+     */
+    public interface FooterRenderer {
+        /**
+         * @return Height of the footer in pixels, which is also the push distance to load more.
+         */
+        int getHeight();
+
+        /**
+         * Draw the footer. Called on every frame the footer is visible, so it should not allocate.
+         *
+         * @param canvas       Canvas of the layout, translated to the top left corner of the footer
+         *                     and clipped to it
+         * @param width        Width of the footer in pixels
+         * @param pushDistance Visible height of the footer in pixels
+         * @param loadingMore  Whether the layout is loading more
+         * @param drawingTime  Drawing time of this frame in milliseconds
+         * @return true to be drawn again on the next frame, e.g. while animating
+         */
+        boolean draw(Canvas canvas, int width, int pushDistance, boolean loadingMore, long drawingTime);
+    }
+
     /**
      * Adapter of OnPullToRefreshListener.
      */
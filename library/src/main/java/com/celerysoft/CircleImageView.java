@@ -17,11 +17,14 @@
 package com.celerysoft;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.ColorFilter;
 import android.graphics.Paint;
-import android.graphics.RadialGradient;
-import android.graphics.Shader;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
 import android.graphics.drawable.ShapeDrawable;
 import android.graphics.drawable.shapes.OvalShape;
 import android.support.v4.content.ContextCompat;
@@ -36,8 +39,6 @@ import android.widget.ImageView;
  */
 class CircleImageView extends ImageView {
     private static final int CIRCLE_BG_LIGHT = 0xFFFAFAFA;
-    private static final int KEY_SHADOW_COLOR = 0x1E000000;
-    private static final int FILL_SHADOW_COLOR = 0x3D000000;
     // PX
     private static final float X_OFFSET = 0f;
     private static final float Y_OFFSET = 1.75f;
@@ -59,22 +60,18 @@ class CircleImageView extends ImageView {
 
         mShadowRadius = (int) (density * SHADOW_RADIUS);
 
-        ShapeDrawable circle;
         if (elevationSupported()) {
-            circle = new ShapeDrawable(new OvalShape());
+            ShapeDrawable circle = new ShapeDrawable(new OvalShape());
             ViewCompat.setElevation(this, SHADOW_ELEVATION * density);
+            circle.getPaint().setColor(color);
+            ViewCompat.setBackground(this, circle);
         } else {
-            OvalShape oval = new OvalShadow(mShadowRadius);
-            circle = new ShapeDrawable(oval);
-            ViewCompat.setLayerType(this, ViewCompat.LAYER_TYPE_SOFTWARE, circle.getPaint());
-            circle.getPaint().setShadowLayer(mShadowRadius, shadowXOffset, shadowYOffset,
-                    KEY_SHADOW_COLOR);
+            // The shadow is pre-rendered once per process instead of blurred on a software layer
+            ViewCompat.setBackground(this, new CachedShadowDrawable(color, shadowXOffset, shadowYOffset));
             final int padding = mShadowRadius;
             // set padding so the inner image sits correctly within the shadow.
             setPadding(padding, padding, padding, padding);
         }
-        circle.getPaint().setColor(color);
-        ViewCompat.setBackground(this, circle);
     }
 
     private boolean elevationSupported() {
@@ -123,39 +120,103 @@ class CircleImageView extends ImageView {
     public void setBackgroundColor(int color) {
         if (getBackground() instanceof ShapeDrawable) {
             ((ShapeDrawable) getBackground()).getPaint().setColor(color);
+        } else if (getBackground() instanceof CachedShadowDrawable) {
+            ((CachedShadowDrawable) getBackground()).setColor(color);
         }
     }
 
-    private class OvalShadow extends OvalShape {
-        private RadialGradient mRadialGradient;
-        private Paint mShadowPaint;
+    /**
+     * Whether the shadow is drawn below Lollipop, a plain circle is drawn without it. From Lollipop
+     * the shadow comes from the elevation and is left as is.
+     */
+    public void setShadowEnabled(boolean enabled) {
+        if (getBackground() instanceof CachedShadowDrawable) {
+            ((CachedShadowDrawable) getBackground()).setShadowEnabled(enabled);
+        }
+    }
+
+    /**
+     * Draws the circle and its shadow from the bitmap shared through {@link CircleShadowCache}.
+     */
+    private class CachedShadowDrawable extends Drawable {
+        private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        // Draws the circle when the shadow is disabled
+        private final Paint mCirclePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        private final int mShadowXOffset;
+        private final int mShadowYOffset;
+        private int mColor;
+        private Bitmap mBitmap;
+        private boolean mShadowEnabled = true;
+
+        CachedShadowDrawable(int color, int shadowXOffset, int shadowYOffset) {
+            mColor = color;
+            mShadowXOffset = shadowXOffset;
+            mShadowYOffset = shadowYOffset;
+        }
+
+        void setColor(int color) {
+            if (mColor != color) {
+                mColor = color;
+                updateBitmap();
+                invalidateSelf();
+            }
+        }
+
+        void setShadowEnabled(boolean enabled) {
+            if (mShadowEnabled != enabled) {
+                mShadowEnabled = enabled;
+                updateBitmap();
+                invalidateSelf();
+            }
+        }
 
-        OvalShadow(int shadowRadius) {
-            super();
-            mShadowPaint = new Paint();
-            mShadowRadius = shadowRadius;
-            updateRadialGradient((int) rect().width());
+        @Override
+        protected void onBoundsChange(Rect bounds) {
+            super.onBoundsChange(bounds);
+            updateBitmap();
+        }
+
+        private void updateBitmap() {
+            final int diameter = getBounds().width();
+            mBitmap = mShadowEnabled && diameter > 0 ? CircleShadowCache.get(diameter, mShadowRadius,
+                    mShadowXOffset, mShadowYOffset, mColor) : null;
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            if (!mShadowEnabled) {
+                final Rect bounds = getBounds();
+                mCirclePaint.setColor(mColor);
+                mCirclePaint.setAlpha(Color.alpha(mColor) * mPaint.getAlpha() / 255);
+                canvas.drawCircle(bounds.exactCenterX(), bounds.exactCenterY(),
+                        bounds.width() / 2f - mShadowRadius, mCirclePaint);
+            } else if (mBitmap != null) {
+                final Rect bounds = getBounds();
+                canvas.drawBitmap(mBitmap, bounds.left, bounds.top, mPaint);
+            }
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+            mPaint.setAlpha(alpha);
+            invalidateSelf();
+        }
+
+        @Override
+        public int getAlpha() {
+            return mPaint.getAlpha();
         }
 
         @Override
-        protected void onResize(float width, float height) {
-            super.onResize(width, height);
-            updateRadialGradient((int) width);
+        public void setColorFilter(ColorFilter colorFilter) {
+            mPaint.setColorFilter(colorFilter);
+            mCirclePaint.setColorFilter(colorFilter);
+            invalidateSelf();
         }
 
         @Override
-        public void draw(Canvas canvas, Paint paint) {
-            final int viewWidth = CircleImageView.this.getWidth();
-            final int viewHeight = CircleImageView.this.getHeight();
-            canvas.drawCircle(viewWidth / 2, viewHeight / 2, viewWidth / 2, mShadowPaint);
-            canvas.drawCircle(viewWidth / 2, viewHeight / 2, viewWidth / 2 - mShadowRadius, paint);
-        }
-
-        private void updateRadialGradient(int diameter) {
-            mRadialGradient = new RadialGradient(diameter / 2, diameter / 2,
-                    mShadowRadius, new int[] { FILL_SHADOW_COLOR, Color.TRANSPARENT },
-                    null, Shader.TileMode.CLAMP);
-            mShadowPaint.setShader(mRadialGradient);
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
         }
     }
 }
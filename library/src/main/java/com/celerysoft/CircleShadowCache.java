@@ -0,0 +1,65 @@
+package com.celerysoft;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RadialGradient;
+import android.graphics.Shader;
+import android.util.LruCache;
+
+/**
+ * Process-wide cache of the circle and its shadow, pre-rendered for {@link CircleImageView} on
+ * platforms without elevation. The blurred shadow is rendered in software once per diameter,
+ * shadow and color, then every circle only draws the bitmap, on a hardware accelerated path.
+ */
+final class CircleShadowCache {
+    private static final int KEY_SHADOW_COLOR = 0x1E000000;
+    private static final int FILL_SHADOW_COLOR = 0x3D000000;
+    // An app rarely uses more than a couple of spinner sizes and colors
+    private static final int MAX_BITMAPS = 8;
+
+    private static final LruCache<String, Bitmap> sBitmaps = new LruCache<>(MAX_BITMAPS);
+
+    private CircleShadowCache() {
+    }
+
+    /**
+     * @param diameter      Diameter of the circle including its shadow, in pixels
+     * @param shadowRadius  Radius of the shadow blur, in pixels
+     * @param shadowXOffset Horizontal offset of the shadow, in pixels
+     * @param shadowYOffset Vertical offset of the shadow, in pixels
+     * @param color         Color of the circle
+     * @return The shared bitmap, it must not be modified.
+     */
+    static Bitmap get(int diameter, int shadowRadius, int shadowXOffset, int shadowYOffset,
+                      int color) {
+        final String key = diameter + "/" + shadowRadius + "/" + shadowXOffset + "/"
+                + shadowYOffset + "/" + color;
+        Bitmap bitmap = sBitmaps.get(key);
+        if (bitmap == null) {
+            bitmap = render(diameter, shadowRadius, shadowXOffset, shadowYOffset, color);
+            sBitmaps.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    private static Bitmap render(int diameter, int shadowRadius, int shadowXOffset,
+                                 int shadowYOffset, int color) {
+        final Bitmap bitmap = Bitmap.createBitmap(diameter, diameter, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(bitmap);
+        final float radius = diameter / 2f;
+
+        final Paint shadowPaint = new Paint();
+        shadowPaint.setShader(new RadialGradient(radius, radius, shadowRadius,
+                new int[] { FILL_SHADOW_COLOR, Color.TRANSPARENT }, null, Shader.TileMode.CLAMP));
+        canvas.drawCircle(radius, radius, radius, shadowPaint);
+
+        // A bitmap canvas is never hardware accelerated, so the shadow layer is always drawn
+        final Paint circlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        circlePaint.setColor(color);
+        circlePaint.setShadowLayer(shadowRadius, shadowXOffset, shadowYOffset, KEY_SHADOW_COLOR);
+        canvas.drawCircle(radius, radius, radius - shadowRadius, circlePaint);
+        return bitmap;
+    }
+}
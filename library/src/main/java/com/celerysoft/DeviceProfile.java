@@ -0,0 +1,71 @@
+package com.celerysoft;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.support.v4.app.ActivityManagerCompat;
+import android.view.Display;
+import android.view.WindowManager;
+
+/**
+ * Detects constrained devices for {@link AdvancedSwipeRefreshLayout#PERFORMANCE_PROFILE_AUTO}, and
+ * the frame rate touch prediction extrapolates to. Neither changes while the process lives, so
+ * both are only computed once.
+ */
+final class DeviceProfile {
+    // Heap limit of an app, in megabytes, at or below which the device is considered low-end
+    private static final int LOW_MEMORY_CLASS = 48;
+    // Refresh rate, in hertz, below which the device is considered low-end
+    private static final float LOW_REFRESH_RATE = 55f;
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private static Boolean sLowEnd;
+    private static float sRefreshRate;
+
+    private DeviceProfile() {
+    }
+
+    /**
+     * @return true on a low RAM device, with a small memory class or a low refresh rate.
+     */
+    static boolean isLowEnd(Context context) {
+        if (sLowEnd == null) {
+            sLowEnd = detectLowEnd(context.getApplicationContext() != null
+                    ? context.getApplicationContext() : context);
+        }
+        return sLowEnd;
+    }
+
+    /**
+     * @return The duration of a frame of the default display, in milliseconds.
+     */
+    static float getFrameInterval(Context context) {
+        if (sRefreshRate == 0f) {
+            final Display display = getDisplay(context.getApplicationContext() != null
+                    ? context.getApplicationContext() : context);
+            final float refreshRate = display != null ? display.getRefreshRate() : 0f;
+            // Some emulators report nonsense
+            sRefreshRate = refreshRate >= 1f ? refreshRate : DEFAULT_REFRESH_RATE;
+        }
+        return 1000f / sRefreshRate;
+    }
+
+    private static Display getDisplay(Context context) {
+        final WindowManager windowManager =
+                (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        return windowManager != null ? windowManager.getDefaultDisplay() : null;
+    }
+
+    private static boolean detectLowEnd(Context context) {
+        final ActivityManager activityManager =
+                (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager != null) {
+            if (ActivityManagerCompat.isLowRamDevice(activityManager)
+                    || activityManager.getMemoryClass() <= LOW_MEMORY_CLASS) {
+                return true;
+            }
+        }
+
+        final Display display = getDisplay(context);
+        return display != null && display.getRefreshRate() < LOW_REFRESH_RATE;
+    }
+}
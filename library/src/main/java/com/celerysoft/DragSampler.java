@@ -0,0 +1,116 @@
+package com.celerysoft;
+
+import android.view.MotionEvent;
+
+/**
+ * Positions of the active pointer during a drag, recorded from every MOVE event together with its
+ * historical samples. The layout records each event and applies only the latest position once per
+ * frame, however often the digitizer samples. The samples also give the velocity of the pointer,
+ * used to predict where it will be when a frame is displayed and to judge a release. Neither
+ * recording nor predicting allocates.
+ */
+final class DragSampler {
+    // Enough for several frames of a 240Hz digitizer
+    private static final int CAPACITY = 16;
+    // Only the samples this recent are used for the velocity, in milliseconds
+    private static final long VELOCITY_WINDOW = 48;
+    // Never extrapolate further than this, in milliseconds
+    private static final long MAX_PREDICTION = 32;
+
+    private final float[] mY = new float[CAPACITY];
+    private final long[] mTime = new long[CAPACITY];
+    /** Index of the newest sample **/
+    private int mNewest = -1;
+    private int mCount;
+
+    /**
+     * Record the samples of a MOVE event, oldest first.
+     */
+    void add(MotionEvent ev, int pointerIndex) {
+        final int historySize = ev.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            add(ev.getHistoricalY(pointerIndex, h), ev.getHistoricalEventTime(h));
+        }
+        add(ev.getY(pointerIndex), ev.getEventTime());
+    }
+
+    void add(float y, long time) {
+        if (mCount > 0 && time < mTime[mNewest]) {
+            // Out of order, keep the newest position
+            return;
+        }
+        mNewest = (mNewest + 1) % CAPACITY;
+        mY[mNewest] = y;
+        mTime[mNewest] = time;
+        mCount = Math.min(mCount + 1, CAPACITY);
+    }
+
+    void clear() {
+        mNewest = -1;
+        mCount = 0;
+    }
+
+    boolean isEmpty() {
+        return mCount == 0;
+    }
+
+    /**
+     * @return The y of the newest sample, must not be called when empty.
+     */
+    float getLatestY() {
+        return mY[mNewest];
+    }
+
+    /**
+     * Extrapolate the pointer from the velocity of the recent samples.
+     *
+     * @param time Time to predict the position at, in the {@link android.os.SystemClock#uptimeMillis()}
+     *             base, it is capped a couple of frames after the newest sample
+     * @return The predicted y, the newest one when there are not enough samples. Must not be called
+     * when empty.
+     */
+    float predictY(long time) {
+        final long horizon = Math.min(time - mTime[mNewest], MAX_PREDICTION);
+        if (horizon <= 0) {
+            return mY[mNewest];
+        }
+        return mY[mNewest] + getVelocity() * horizon;
+    }
+
+    /**
+     * @return The velocity of the pointer in pixels per millisecond, a least squares fit of the
+     * samples recorded shortly before the newest one. 0 when there are not enough samples.
+     */
+    float getVelocity() {
+        if (mCount < 2) {
+            return 0;
+        }
+        final float latestY = mY[mNewest];
+        final long latestTime = mTime[mNewest];
+
+        // Times relative to the newest sample keep the sums small
+        float sumT = 0;
+        float sumY = 0;
+        float sumTT = 0;
+        float sumTY = 0;
+        int n = 0;
+        for (int i = 0; i < mCount; i++) {
+            final int index = (mNewest - i + CAPACITY) % CAPACITY;
+            final float t = mTime[index] - latestTime;
+            if (-t > VELOCITY_WINDOW) {
+                break;
+            }
+            final float y = mY[index] - latestY;
+            sumT += t;
+            sumY += y;
+            sumTT += t * t;
+            sumTY += t * y;
+            n++;
+        }
+        final float denominator = n * sumTT - sumT * sumT;
+        if (n < 2 || denominator == 0) {
+            return 0;
+        }
+        return (n * sumTY - sumT * sumY) / denominator;
+    }
+}
@@ -1,10 +1,17 @@
 package com.celerysoft;
 
 import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
 import android.view.animation.Animation;
-import android.widget.RelativeLayout;
 
-class HeaderViewContainer extends RelativeLayout {
+/**
+ * Container of the header views. Every child is measured once per pass and centered within its
+ * margins, a child that matches the parent is stretched to the container instead. Unlike the
+ * RelativeLayout this container used to be, it never measures its children twice.
+ */
+class HeaderViewContainer extends ViewGroup {
     private Animation.AnimationListener mListener;
 
     public HeaderViewContainer(Context context) {
@@ -30,4 +37,73 @@ class HeaderViewContainer extends RelativeLayout {
             mListener.onAnimationEnd(getAnimation());
         }
     }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int maxWidth = 0;
+        int maxHeight = 0;
+        for (int i = 0; i < getChildCount(); i++) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() == View.GONE) {
+                continue;
+            }
+            measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, 0);
+            final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+            maxWidth = Math.max(maxWidth, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+            maxHeight = Math.max(maxHeight, child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+        }
+
+        maxWidth = Math.max(maxWidth + getPaddingLeft() + getPaddingRight(), getSuggestedMinimumWidth());
+        maxHeight = Math.max(maxHeight + getPaddingTop() + getPaddingBottom(), getSuggestedMinimumHeight());
+        setMeasuredDimension(resolveSize(maxWidth, widthMeasureSpec),
+                resolveSize(maxHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        final int contentWidth = r - l - getPaddingLeft() - getPaddingRight();
+        final int contentHeight = b - t - getPaddingTop() - getPaddingBottom();
+        for (int i = 0; i < getChildCount(); i++) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() == View.GONE) {
+                continue;
+            }
+            final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+            final int childWidth = child.getMeasuredWidth();
+            final int childHeight = child.getMeasuredHeight();
+            final int childLeft = getPaddingLeft() + lp.leftMargin
+                    + (contentWidth - lp.leftMargin - lp.rightMargin - childWidth) / 2;
+            final int childTop = getPaddingTop() + lp.topMargin
+                    + (contentHeight - lp.topMargin - lp.bottomMargin - childHeight) / 2;
+            child.layout(childLeft, childTop, childLeft + childWidth, childTop + childHeight);
+        }
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new MarginLayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new MarginLayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(LayoutParams p) {
+        if (p instanceof MarginLayoutParams) {
+            return new MarginLayoutParams((MarginLayoutParams) p);
+        }
+        return new MarginLayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(LayoutParams p) {
+        return p instanceof MarginLayoutParams;
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
 }
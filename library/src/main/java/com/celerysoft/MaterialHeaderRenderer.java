@@ -0,0 +1,162 @@
+package com.celerysoft;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.support.annotation.ColorInt;
+
+/**
+ * The Material progress spinner of {@link AdvancedSwipeRefreshLayout} drawn as a
+ * {@link AdvancedSwipeRefreshLayout.HeaderRenderer}, without the {@link CircleImageView} and the
+ * header view container children.
+ */
+public class MaterialHeaderRenderer implements AdvancedSwipeRefreshLayout.HeaderRenderer {
+    private static final int KEY_SHADOW_COLOR = 0x1E000000;
+    private static final float SHADOW_Y_OFFSET = 1.75f;
+    private static final float SHADOW_RADIUS = 3.5f;
+
+    private final float mDensity;
+    private final MaterialProgressDrawable mProgress;
+    private final Paint mCirclePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mShadowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private int mCircleDiameter;
+    private int mHeight;
+
+    private boolean mSpinning;
+    private long mSpinStartTime;
+    /** Whether the layout runs with its low-end profile, set by the layout **/
+    private boolean mLowEndProfile;
+
+    public MaterialHeaderRenderer(Context context) {
+        mDensity = context.getResources().getDisplayMetrics().density;
+        mProgress = new MaterialProgressDrawable(context, null);
+        mCirclePaint.setColor(SpinnerFeedback.CIRCLE_BG_LIGHT);
+        mShadowPaint.setColor(KEY_SHADOW_COLOR);
+        setBackgroundColor(SpinnerFeedback.CIRCLE_BG_LIGHT);
+        setSize(MaterialProgressDrawable.DEFAULT);
+    }
+
+    /**
+     * One of {@link AdvancedSwipeRefreshLayout#DEFAULT} or {@link AdvancedSwipeRefreshLayout#LARGE}.
+     */
+    public void setSize(int size) {
+        if (size != MaterialProgressDrawable.LARGE && size != MaterialProgressDrawable.DEFAULT) {
+            return;
+        }
+        if (size == MaterialProgressDrawable.LARGE) {
+            mCircleDiameter = (int) (AdvancedSwipeRefreshLayout.CIRCLE_DIAMETER_LARGE * mDensity);
+        } else {
+            mCircleDiameter = (int) (AdvancedSwipeRefreshLayout.CIRCLE_DIAMETER * mDensity);
+        }
+        mHeight = (int) (mCircleDiameter + 8 * mDensity);
+        mProgress.updateSizes(size);
+        mProgress.setBounds(0, 0, mCircleDiameter, mCircleDiameter);
+    }
+
+    /**
+     * Set the colors used in the progress animation. The first color will also be the color of
+     * the bar that grows in response to a user swipe gesture.
+     */
+    public void setColorSchemeColors(@ColorInt int... colors) {
+        mProgress.setColorSchemeColors(colors);
+    }
+
+    /**
+     * Set how many steps of the transition between two colors of the scheme are precomputed.
+     */
+    public void setColorTransitionSteps(int steps) {
+        mProgress.setColorTransitionSteps(steps);
+    }
+
+    /**
+     * Draw the spinning progress from pre-rendered frames, see
+     * {@link AdvancedSwipeRefreshLayout#setSpinnerSpriteMode(boolean)}.
+     */
+    public void setSpriteMode(boolean enabled) {
+        mProgress.setSpriteMode(enabled);
+    }
+
+    /**
+     * Set the background color of the progress spinner disc.
+     */
+    public void setBackgroundColor(@ColorInt int color) {
+        mCirclePaint.setColor(color);
+        mProgress.setBackgroundColor(color);
+    }
+
+    /**
+     * Follow the performance profile of the layout, see
+     * {@link AdvancedSwipeRefreshLayout#setPerformanceProfile(int)}. With the low-end profile the
+     * disc has no shadow and a refresh shows a still arc instead of spinning.
+     */
+    void setLowEndProfile(boolean lowEnd) {
+        if (mLowEndProfile != lowEnd) {
+            mLowEndProfile = lowEnd;
+            // Start over on the next refreshing frame
+            if (mSpinning) {
+                mSpinning = false;
+                mProgress.stopFrames();
+            }
+        }
+    }
+
+    @Override
+    public int getHeight() {
+        return mHeight;
+    }
+
+    @Override
+    public boolean draw(Canvas canvas, int width, float pullFraction, int state, long drawingTime) {
+        final boolean refreshing = state == STATE_REFRESHING;
+        if (refreshing && mLowEndProfile) {
+            SpinnerFeedback.applyStillRefresh(mProgress);
+        } else if (refreshing) {
+            if (!mSpinning) {
+                mSpinning = true;
+                mSpinStartTime = drawingTime;
+                // Make sure the progress view is fully visible
+                mProgress.setAlpha(SpinnerFeedback.MAX_ALPHA);
+                mProgress.startFrames();
+            }
+            mProgress.setPlayTime(drawingTime - mSpinStartTime);
+        } else {
+            if (mSpinning) {
+                mSpinning = false;
+                mProgress.stopFrames();
+            }
+            applyPullFraction(pullFraction);
+        }
+
+        final float radius = mCircleDiameter / 2f;
+        final float centerX = width / 2f;
+        final float centerY = mHeight / 2f;
+        if (!mLowEndProfile) {
+            canvas.drawCircle(centerX, centerY + SHADOW_Y_OFFSET * mDensity,
+                    radius + SHADOW_RADIUS * mDensity / 2, mShadowPaint);
+        }
+        canvas.drawCircle(centerX, centerY, radius, mCirclePaint);
+
+        final int saveCount = canvas.save();
+        canvas.translate(centerX - radius, centerY - radius);
+        mProgress.draw(canvas);
+        canvas.restoreToCount(saveCount);
+
+        // The still arc of the low-end profile needs no further frame
+        return refreshing && !mLowEndProfile;
+    }
+
+    /**
+     * Same progress feedback as the default header of {@link AdvancedSwipeRefreshLayout}, with the
+     * slingshot distance taken as the trigger distance.
+     */
+    private void applyPullFraction(float pullFraction) {
+        float dragPercent = Math.min(1f, Math.abs(pullFraction));
+        float tensionSlingshotPercent = Math.max(0, Math.min(pullFraction - 1f, 2f));
+
+        mProgress.setAlpha(pullFraction < 1f
+                ? SpinnerFeedback.STARTING_PROGRESS_ALPHA : SpinnerFeedback.MAX_ALPHA);
+        SpinnerFeedback.applyPull(mProgress, dragPercent,
+                SpinnerFeedback.getTensionPercent(tensionSlingshotPercent));
+    }
+}
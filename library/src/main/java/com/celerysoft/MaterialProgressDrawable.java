@@ -21,6 +21,7 @@ import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.ColorFilter;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Paint.Style;
 import android.graphics.Path;
@@ -31,10 +32,12 @@ import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
 import android.support.annotation.IntDef;
 import android.support.annotation.NonNull;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.animation.FastOutSlowInInterpolator;
 import android.util.DisplayMetrics;
 import android.view.View;
 import android.view.animation.Animation;
+import android.view.animation.AnimationUtils;
 import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
 import android.view.animation.Transformation;
@@ -80,6 +83,8 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
      * the color transition should start
      */
     private static final float COLOR_START_DELAY_OFFSET = 0.75f;
+    /** Default number of precomputed steps of each color transition */
+    static final int DEFAULT_COLOR_TRANSITION_STEPS = 32;
     private static final float END_TRIM_START_DELAY_OFFSET = 0.5f;
     private static final float START_TRIM_DURATION_OFFSET = 0.5f;
 
@@ -105,7 +110,7 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
     /** Layout info for the arrowhead for the large spinner in dp */
     private static final int ARROW_WIDTH_LARGE = 12;
     private static final int ARROW_HEIGHT_LARGE = 6;
-    private static final float MAX_PROGRESS_ARC = .8f;
+    static final float MAX_PROGRESS_ARC = .8f;
 
     private Resources mResources;
     private View mParent;
@@ -114,6 +119,45 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
     private double mWidth;
     private double mHeight;
     boolean mFinishing;
+    /** Whether {@link #start()} has been called without a matching {@link #stop()} **/
+    private boolean mStarted;
+    /** Whether the animation is paused by {@link #suspend()} **/
+    private boolean mSuspended;
+    /** Time spent in the current cycle when the animation was suspended **/
+    private long mSuspendedPlayTime;
+    /** Start of the current cycle of the animation driven by {@link #setPlayTime(long)} **/
+    private long mCycleStartTime;
+    /** Whether invalidations are coalesced into one per frame, see {@link #setBatchInvalidations(boolean)} **/
+    private boolean mBatchInvalidations;
+    /** Whether an invalidation is posted for the next frame **/
+    private boolean mInvalidatePending;
+    /** Whether the parent is applying a frame, see {@link #beginFrame()} **/
+    private boolean mInFrame;
+    /** Whether the state changed since {@link #beginFrame()} **/
+    private boolean mFrameDirty;
+    /** Number of invalidations dispatched to the callback **/
+    private int mInvalidationCount;
+
+    /** Whether spinning frames are drawn from a {@link SpinnerAtlas}, see {@link #setSpriteMode(boolean)} **/
+    private boolean mSpriteMode;
+    /** Atlas of the current size and stroke, null while it is rendered **/
+    private SpinnerAtlas mAtlas;
+
+    private final Runnable mAtlasReadyRunnable = new Runnable() {
+        @Override
+        public void run() {
+            requestAtlas();
+            invalidateSelf();
+        }
+    };
+
+    private final Runnable mInvalidateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mInvalidatePending = false;
+            dispatchInvalidate();
+        }
+    };
 
     MaterialProgressDrawable(Context context, View parent) {
         mParent = parent;
@@ -156,6 +200,35 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
             setSizeParameters(CIRCLE_DIAMETER, CIRCLE_DIAMETER, CENTER_RADIUS, STROKE_WIDTH,
                     ARROW_WIDTH, ARROW_HEIGHT);
         }
+        requestAtlas();
+    }
+
+    /**
+     * Draw the spinning ring from arcs pre-rendered once per size and stroke, on a background
+     * thread, instead of drawing it on every frame. The ring is still drawn live while it shows
+     * the arrow, i.e. while the user pulls, and until the atlas is ready.
+     *
+     * @param enabled true to draw the spinning frames from the atlas
+     */
+    public void setSpriteMode(boolean enabled) {
+        mSpriteMode = enabled;
+        requestAtlas();
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        requestAtlas();
+    }
+
+    private void requestAtlas() {
+        final Rect bounds = getBounds();
+        if (!mSpriteMode || bounds.isEmpty()) {
+            mAtlas = null;
+            return;
+        }
+        mAtlas = SpinnerAtlas.obtain(bounds.width(), bounds.height(), mRing.getStrokeWidth(),
+                mRing.getInsets(), mAtlasReadyRunnable);
     }
 
     /**
@@ -211,6 +284,83 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
         mRing.setColorIndex(0);
     }
 
+    /**
+     * Set how many steps of each transition between two colors of the scheme are precomputed.
+     * The colors are looked up in that table while the spinner rotates, more steps give a
+     * smoother transition for a larger table.
+     *
+     * @param steps Number of steps, at least 2, {@link #DEFAULT_COLOR_TRANSITION_STEPS} by default
+     */
+    public void setColorTransitionSteps(int steps) {
+        mRing.setColorTransitionSteps(steps);
+    }
+
+    /**
+     * Coalesce the invalidations of every setter into a single one posted on the next animation
+     * frame of the parent view, instead of invalidating on each state change. Changes made between
+     * {@link #beginFrame()} and {@link #endFrame()} are invalidated at once instead, so that they
+     * are drawn in the frame that made them. Has no effect without a parent view.
+     *
+     * @param batch true to post one invalidation per frame
+     */
+    public void setBatchInvalidations(boolean batch) {
+        mBatchInvalidations = batch;
+    }
+
+    /**
+     * @return Number of invalidations dispatched to the callback so far.
+     */
+    public int getInvalidationCount() {
+        return mInvalidationCount;
+    }
+
+    /**
+     * Called by the parent before it applies a frame callback. The invalidations of the setters are
+     * held until {@link #endFrame()}.
+     */
+    void beginFrame() {
+        mInFrame = true;
+    }
+
+    /**
+     * Called by the parent once its frame callback is applied, invalidates right away if the state
+     * changed since {@link #beginFrame()}.
+     */
+    void endFrame() {
+        mInFrame = false;
+        if (!mFrameDirty) {
+            return;
+        }
+        mFrameDirty = false;
+        if (mInvalidatePending) {
+            // Already covered by this invalidation
+            mParent.removeCallbacks(mInvalidateRunnable);
+            mInvalidatePending = false;
+        }
+        dispatchInvalidate();
+    }
+
+    @Override
+    public void invalidateSelf() {
+        if (mBatchInvalidations && mParent != null) {
+            if (mInFrame) {
+                mFrameDirty = true;
+                return;
+            }
+            if (!mInvalidatePending) {
+                mInvalidatePending = true;
+                ViewCompat.postOnAnimation(mParent, mInvalidateRunnable);
+            }
+            return;
+        }
+        dispatchInvalidate();
+    }
+
+    private void dispatchInvalidate() {
+        mInvalidationCount++;
+        super.invalidateSelf();
+    }
+
     @Override
     public int getIntrinsicHeight() {
         return (int) mHeight;
@@ -226,7 +376,9 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
         final Rect bounds = getBounds();
         final int saveCount = c.save();
         c.rotate(mRotation, bounds.exactCenterX(), bounds.exactCenterY());
-        mRing.draw(c, bounds);
+        if (mAtlas == null || !mRing.drawSprite(c, bounds, mAtlas)) {
+            mRing.draw(c, bounds);
+        }
         c.restoreToCount(saveCount);
     }
 
@@ -275,24 +427,103 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
 
     @Override
     public void start() {
+        mStarted = true;
+        mSuspendedPlayTime = 0;
+        prepareAnimation();
+        if (!mSuspended) {
+            mParent.startAnimation(mAnimation);
+        }
+    }
+
+    private void prepareAnimation() {
         mAnimation.reset();
         mRing.storeOriginals();
         // Already showing some part of the ring
         if (mRing.getEndTrim() != mRing.getStartTrim()) {
             mFinishing = true;
             mAnimation.setDuration(ANIMATION_DURATION / 2);
-            mParent.startAnimation(mAnimation);
         } else {
             mRing.setColorIndex(0);
             mRing.resetOriginals();
             mAnimation.setDuration(ANIMATION_DURATION);
+        }
+    }
+
+    /**
+     * Start spinning without animating the parent view, the frames are then produced by
+     * {@link #setPlayTime(long)}. Used when the spinner is drawn directly on a canvas, see
+     * {@link MaterialHeaderRenderer}.
+     */
+    void startFrames() {
+        mCycleStartTime = 0;
+        mRotationCount = 0;
+        prepareAnimation();
+    }
+
+    /**
+     * Move the animation started by {@link #startFrames()} to the given time.
+     *
+     * @param playTime Time in milliseconds since the animation started
+     */
+    void setPlayTime(long playTime) {
+        long duration = mAnimation.getDuration();
+        while (playTime - mCycleStartTime >= duration) {
+            mCycleStartTime += duration;
+            repeatAnimation();
+            duration = mAnimation.getDuration();
+        }
+        applyAnimation(LINEAR_INTERPOLATOR.getInterpolation(
+                (playTime - mCycleStartTime) / (float) duration));
+    }
+
+    /**
+     * Stop the animation started by {@link #startFrames()}.
+     */
+    void stopFrames() {
+        resetAnimation();
+    }
+
+    /**
+     * Pause the spinning animation while keeping its state, so that {@link #resume()} continues
+     * where it stopped. Has no effect on whether the drawable is started.
+     */
+    void suspend() {
+        if (mSuspended) {
+            return;
+        }
+        mSuspended = true;
+        if (mStarted) {
+            final long startTime = mAnimation.getStartTime();
+            mSuspendedPlayTime = startTime > 0
+                    ? (AnimationUtils.currentAnimationTimeMillis() - startTime) % mAnimation.getDuration()
+                    : 0;
+            mParent.clearAnimation();
+        }
+    }
+
+    /**
+     * Continue the animation paused by {@link #suspend()}.
+     */
+    void resume() {
+        if (!mSuspended) {
+            return;
+        }
+        mSuspended = false;
+        if (mStarted) {
             mParent.startAnimation(mAnimation);
+            mAnimation.setStartTime(AnimationUtils.currentAnimationTimeMillis() - mSuspendedPlayTime);
         }
     }
 
     @Override
     public void stop() {
+        mStarted = false;
+        mSuspendedPlayTime = 0;
         mParent.clearAnimation();
+        resetAnimation();
+    }
+
+    private void resetAnimation() {
         setRotation(0);
         mRing.setShowArrow(false);
         mRing.setColorIndex(0);
@@ -305,14 +536,14 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
     }
 
     // Adapted from ArgbEvaluator.java
-    private int evaluateColorChange(float fraction, int startValue, int endValue) {
-        int startInt = (Integer) startValue;
+    static int evaluateColorChange(float fraction, int startValue, int endValue) {
+        int startInt = startValue;
         int startA = (startInt >> 24) & 0xff;
         int startR = (startInt >> 16) & 0xff;
         int startG = (startInt >> 8) & 0xff;
         int startB = startInt & 0xff;
 
-        int endInt = (Integer) endValue;
+        int endInt = endValue;
         int endA = (endInt >> 24) & 0xff;
         int endR = (endInt >> 16) & 0xff;
         int endG = (endInt >> 8) & 0xff;
@@ -334,9 +565,8 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
             // scale the interpolatedTime so that the full
             // transformation from 0 - 1 takes place in the
             // remaining time
-            ring.setColor(evaluateColorChange((interpolatedTime - COLOR_START_DELAY_OFFSET)
-                            / (1.0f - COLOR_START_DELAY_OFFSET), ring.getStartingColor(),
-                    ring.getNextColor()));
+            ring.setColor(ring.getTransitionColor((interpolatedTime - COLOR_START_DELAY_OFFSET)
+                    / (1.0f - COLOR_START_DELAY_OFFSET)));
         }
     }
 
@@ -358,58 +588,84 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
         ring.setRotation(rotation);
     }
 
-    private void setupAnimators() {
+    /**
+     * Apply one frame of a spinning cycle.
+     */
+    private void applyAnimation(float interpolatedTime) {
+        final Ring ring = mRing;
+        if (mFinishing) {
+            applyFinishTranslation(interpolatedTime, ring);
+        } else {
+            // The minProgressArc is calculated from 0 to create an
+            // angle that matches the stroke width.
+            final float minProgressArc = getMinProgressArc(ring);
+            final float startingEndTrim = ring.getStartingEndTrim();
+            final float startingTrim = ring.getStartingStartTrim();
+            final float startingRotation = ring.getStartingRotation();
+
+            updateRingColor(interpolatedTime, ring);
+
+            // Moving the start trim only occurs in the first 50% of a
+            // single ring animation
+            if (interpolatedTime <= START_TRIM_DURATION_OFFSET) {
+                // scale the interpolatedTime so that the full
+                // transformation from 0 - 1 takes place in the
+                // remaining time
+                final float scaledTime = (interpolatedTime)
+                        / (1.0f - START_TRIM_DURATION_OFFSET);
+                final float startTrim = startingTrim
+                        + ((MAX_PROGRESS_ARC - minProgressArc) * MATERIAL_INTERPOLATOR
+                        .getInterpolation(scaledTime));
+                ring.setStartTrim(startTrim);
+            }
+
+            // Moving the end trim starts after 50% of a single ring
+            // animation completes
+            if (interpolatedTime > END_TRIM_START_DELAY_OFFSET) {
+                // scale the interpolatedTime so that the full
+                // transformation from 0 - 1 takes place in the
+                // remaining time
+                final float minArc = MAX_PROGRESS_ARC - minProgressArc;
+                float scaledTime = (interpolatedTime - START_TRIM_DURATION_OFFSET)
+                        / (1.0f - START_TRIM_DURATION_OFFSET);
+                final float endTrim = startingEndTrim
+                        + (minArc * MATERIAL_INTERPOLATOR.getInterpolation(scaledTime));
+                ring.setEndTrim(endTrim);
+            }
+
+            final float rotation = startingRotation + (0.25f * interpolatedTime);
+            ring.setRotation(rotation);
+
+            float groupRotation = ((FULL_ROTATION / NUM_POINTS) * interpolatedTime)
+                    + (FULL_ROTATION * (mRotationCount / NUM_POINTS));
+            setRotation(groupRotation);
+        }
+    }
+
+    /**
+     * Move on to the next spinning cycle.
+     */
+    private void repeatAnimation() {
         final Ring ring = mRing;
+        ring.storeOriginals();
+        ring.goToNextColor();
+        ring.setStartTrim(ring.getEndTrim());
+        if (mFinishing) {
+            // finished closing the last ring from the swipe gesture; go
+            // into progress mode
+            mFinishing = false;
+            mAnimation.setDuration(ANIMATION_DURATION);
+            ring.setShowArrow(false);
+        } else {
+            mRotationCount = (mRotationCount + 1) % (NUM_POINTS);
+        }
+    }
+
+    private void setupAnimators() {
         final Animation animation = new Animation() {
             @Override
             public void applyTransformation(float interpolatedTime, Transformation t) {
-                if (mFinishing) {
-                    applyFinishTranslation(interpolatedTime, ring);
-                } else {
-                    // The minProgressArc is calculated from 0 to create an
-                    // angle that matches the stroke width.
-                    final float minProgressArc = getMinProgressArc(ring);
-                    final float startingEndTrim = ring.getStartingEndTrim();
-                    final float startingTrim = ring.getStartingStartTrim();
-                    final float startingRotation = ring.getStartingRotation();
-
-                    updateRingColor(interpolatedTime, ring);
-
-                    // Moving the start trim only occurs in the first 50% of a
-                    // single ring animation
-                    if (interpolatedTime <= START_TRIM_DURATION_OFFSET) {
-                        // scale the interpolatedTime so that the full
-                        // transformation from 0 - 1 takes place in the
-                        // remaining time
-                        final float scaledTime = (interpolatedTime)
-                                / (1.0f - START_TRIM_DURATION_OFFSET);
-                        final float startTrim = startingTrim
-                                + ((MAX_PROGRESS_ARC - minProgressArc) * MATERIAL_INTERPOLATOR
-                                .getInterpolation(scaledTime));
-                        ring.setStartTrim(startTrim);
-                    }
-
-                    // Moving the end trim starts after 50% of a single ring
-                    // animation completes
-                    if (interpolatedTime > END_TRIM_START_DELAY_OFFSET) {
-                        // scale the interpolatedTime so that the full
-                        // transformation from 0 - 1 takes place in the
-                        // remaining time
-                        final float minArc = MAX_PROGRESS_ARC - minProgressArc;
-                        float scaledTime = (interpolatedTime - START_TRIM_DURATION_OFFSET)
-                                / (1.0f - START_TRIM_DURATION_OFFSET);
-                        final float endTrim = startingEndTrim
-                                + (minArc * MATERIAL_INTERPOLATOR.getInterpolation(scaledTime));
-                        ring.setEndTrim(endTrim);
-                    }
-
-                    final float rotation = startingRotation + (0.25f * interpolatedTime);
-                    ring.setRotation(rotation);
-
-                    float groupRotation = ((FULL_ROTATION / NUM_POINTS) * interpolatedTime)
-                            + (FULL_ROTATION * (mRotationCount / NUM_POINTS));
-                    setRotation(groupRotation);
-                }
+                applyAnimation(interpolatedTime);
             }
         };
         animation.setRepeatCount(Animation.INFINITE);
@@ -429,18 +685,7 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
 
             @Override
             public void onAnimationRepeat(Animation animation) {
-                ring.storeOriginals();
-                ring.goToNextColor();
-                ring.setStartTrim(ring.getEndTrim());
-                if (mFinishing) {
-                    // finished closing the last ring from the swipe gesture; go
-                    // into progress mode
-                    mFinishing = false;
-                    animation.setDuration(ANIMATION_DURATION);
-                    ring.setShowArrow(false);
-                } else {
-                    mRotationCount = (mRotationCount + 1) % (NUM_POINTS);
-                }
+                repeatAnimation();
             }
         });
         mAnimation = animation;
@@ -467,6 +712,8 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
         private final RectF mTempBounds = new RectF();
         private final Paint mPaint = new Paint();
         private final Paint mArrowPaint = new Paint();
+        // Tints the alpha-only frames of the atlas
+        private final Paint mSpritePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
 
         private final Callback mCallback;
 
@@ -481,11 +728,18 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
         // progress circle should currently display. As the progress circle is
         // animating, the mColorIndex moves by one to the next available color.
         private int mColorIndex;
+        private int mColorTransitionSteps = DEFAULT_COLOR_TRANSITION_STEPS;
+        // Transition from each color to the next one, mColorTransitionSteps entries per color
+        private int[] mColorTransitions;
         private float mStartingStartTrim;
         private float mStartingEndTrim;
         private float mStartingRotation;
         private boolean mShowArrow;
         private Path mArrow;
+        /** Whether {@link #mArrow} has to be rebuilt before it is drawn **/
+        private boolean mArrowDirty = true;
+        /** Places the cached arrow, built around the center of the bounds, on the arc **/
+        private final Matrix mArrowMatrix = new Matrix();
         private float mArrowScale;
         private double mRingCenterRadius;
         private int mArrowWidth;
@@ -519,6 +773,7 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
         public void setArrowDimensions(float width, float height) {
             mArrowWidth = (int) width;
             mArrowHeight = (int) height;
+            mArrowDirty = true;
         }
 
         /**
@@ -546,39 +801,77 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
             }
         }
 
+        /**
+         * Draw the ring from a frame of the atlas.
+         *
+         * @return false if the ring can not be drawn from the atlas, e.g. while it shows the arrow.
+         */
+        boolean drawSprite(Canvas c, Rect bounds, SpinnerAtlas atlas) {
+            if (mShowArrow || mAlpha < 255) {
+                return false;
+            }
+            final float startAngle = (mStartTrim + mRotation) * 360;
+            final float sweepAngle = (mEndTrim - mStartTrim) * 360;
+            final int frame = atlas.getFrame(sweepAngle);
+            if (frame < 0) {
+                return false;
+            }
+
+            mSpritePaint.setColor(mCurrentColor);
+            c.rotate(startAngle, bounds.exactCenterX(), bounds.exactCenterY());
+            atlas.draw(c, frame, bounds, mSpritePaint);
+            return true;
+        }
+
         private void drawTriangle(Canvas c, float startAngle, float sweepAngle, Rect bounds) {
             if (mShowArrow) {
-                if (mArrow == null) {
-                    mArrow = new Path();
-                    mArrow.setFillType(Path.FillType.EVEN_ODD);
-                } else {
-                    mArrow.reset();
+                if (mArrowDirty) {
+                    buildArrow();
                 }
 
-                // Adjust the position of the triangle so that it is inset as
-                // much as the arc, but also centered on the arc.
-                float inset = (int) mStrokeInset / 2 * mArrowScale;
-                float x = (float) (mRingCenterRadius * Math.cos(0) + bounds.exactCenterX());
-                float y = (float) (mRingCenterRadius * Math.sin(0) + bounds.exactCenterY());
-
-                // Update the path each time. This works around an issue in SKIA
-                // where concatenating a rotation matrix to a scale matrix
-                // ignored a starting negative rotation. This appears to have
-                // been fixed as of API 21.
-                mArrow.moveTo(0, 0);
-                mArrow.lineTo(mArrowWidth * mArrowScale, 0);
-                mArrow.lineTo((mArrowWidth * mArrowScale / 2), (mArrowHeight
-                        * mArrowScale));
-                mArrow.offset(x - inset, y);
-                mArrow.close();
+                // The path is built around the center of the bounds, only its placement changes
+                // from frame to frame
+                mArrowMatrix.setRotate(startAngle + sweepAngle - ARROW_OFFSET_ANGLE);
+                mArrowMatrix.postTranslate(bounds.exactCenterX(), bounds.exactCenterY());
+
                 // draw a triangle
                 mArrowPaint.setColor(mCurrentColor);
-                c.rotate(startAngle + sweepAngle - ARROW_OFFSET_ANGLE, bounds.exactCenterX(),
-                        bounds.exactCenterY());
+                final int saveCount = c.save();
+                c.concat(mArrowMatrix);
                 c.drawPath(mArrow, mArrowPaint);
+                c.restoreToCount(saveCount);
             }
         }
 
+        /**
+         * Rebuild the arrow path, relative to the center of the bounds. Only needed when the scale,
+         * the dimensions of the arrow, the stroke inset or the radius change.
+         */
+        private void buildArrow() {
+            if (mArrow == null) {
+                mArrow = new Path();
+                mArrow.setFillType(Path.FillType.EVEN_ODD);
+            } else {
+                mArrow.reset();
+            }
+
+            // Adjust the position of the triangle so that it is inset as
+            // much as the arc, but also centered on the arc.
+            float inset = (int) mStrokeInset / 2 * mArrowScale;
+            float x = (float) mRingCenterRadius;
+
+            // The scale is applied to the points rather than through the canvas. This works
+            // around an issue in SKIA where concatenating a rotation matrix to a scale matrix
+            // ignored a starting negative rotation. This appears to have been fixed as of API 21.
+            mArrow.moveTo(0, 0);
+            mArrow.lineTo(mArrowWidth * mArrowScale, 0);
+            mArrow.lineTo((mArrowWidth * mArrowScale / 2), (mArrowHeight
+                    * mArrowScale));
+            mArrow.offset(x - inset, 0);
+            mArrow.close();
+            mArrowDirty = false;
+        }
+
         /**
          * Set the colors the progress spinner alternates between.
          *
@@ -586,10 +879,54 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
          */
         public void setColors(@NonNull int[] colors) {
             mColors = colors;
+            buildColorTransitions();
             // if colors are resetHeader, make sure to resetHeader the color index as well
             setColorIndex(0);
         }
 
+        /**
+         * @param steps Number of precomputed steps of each color transition, at least 2.
+         */
+        public void setColorTransitionSteps(int steps) {
+            steps = Math.max(2, steps);
+            if (steps != mColorTransitionSteps) {
+                mColorTransitionSteps = steps;
+                buildColorTransitions();
+            }
+        }
+
+        /**
+         * Precompute the transition from every color to the next one, row after row.
+         */
+        private void buildColorTransitions() {
+            if (mColors == null) {
+                return;
+            }
+            final int steps = mColorTransitionSteps;
+            final int size = mColors.length * steps;
+            if (mColorTransitions == null || mColorTransitions.length != size) {
+                mColorTransitions = new int[size];
+            }
+            for (int i = 0; i < mColors.length; i++) {
+                final int startColor = mColors[i];
+                final int endColor = mColors[(i + 1) % mColors.length];
+                for (int step = 0; step < steps; step++) {
+                    mColorTransitions[i * steps + step] = evaluateColorChange(
+                            step / (float) (steps - 1), startColor, endColor);
+                }
+            }
+        }
+
+        /**
+         * @param fraction Progress of the transition from the current color to the next one, from 0 to 1
+         * @return The precomputed color closest to that progress.
+         */
+        public int getTransitionColor(float fraction) {
+            final int steps = mColorTransitionSteps;
+            final int step = Math.max(0, Math.min(steps - 1, Math.round(fraction * (steps - 1))));
+            return mColorTransitions[mColorIndex * steps + step];
+        }
+
         /**
          * Set the absolute color of the progress spinner. This is should only
          * be used when animating between current and next color when the
@@ -631,6 +968,7 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
 
         public void setColorFilter(ColorFilter filter) {
             mPaint.setColorFilter(filter);
+            mSpritePaint.setColorFilter(filter);
             invalidateSelf();
         }
 
@@ -664,8 +1002,10 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
 
         @SuppressWarnings("unused")
         public void setStartTrim(float startTrim) {
-            mStartTrim = startTrim;
-            invalidateSelf();
+            if (startTrim != mStartTrim) {
+                mStartTrim = startTrim;
+                invalidateSelf();
+            }
         }
 
         @SuppressWarnings("unused")
@@ -687,8 +1027,10 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
 
         @SuppressWarnings("unused")
         public void setEndTrim(float endTrim) {
-            mEndTrim = endTrim;
-            invalidateSelf();
+            if (endTrim != mEndTrim) {
+                mEndTrim = endTrim;
+                invalidateSelf();
+            }
         }
 
         @SuppressWarnings("unused")
@@ -698,8 +1040,10 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
 
         @SuppressWarnings("unused")
         public void setRotation(float rotation) {
-            mRotation = rotation;
-            invalidateSelf();
+            if (rotation != mRotation) {
+                mRotation = rotation;
+                invalidateSelf();
+            }
         }
 
         @SuppressWarnings("unused")
@@ -716,6 +1060,7 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
                 insets = (float) (minEdge / 2.0f - mRingCenterRadius);
             }
             mStrokeInset = insets;
+            mArrowDirty = true;
         }
 
         @SuppressWarnings("unused")
@@ -729,6 +1074,7 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
          */
         public void setCenterRadius(double centerRadius) {
             mRingCenterRadius = centerRadius;
+            mArrowDirty = true;
         }
 
         public double getCenterRadius() {
@@ -751,6 +1097,7 @@ class MaterialProgressDrawable extends Drawable implements Animatable {
         public void setArrowScale(float scale) {
             if (scale != mArrowScale) {
                 mArrowScale = scale;
+                mArrowDirty = true;
                 invalidateSelf();
             }
         }
@@ -0,0 +1,151 @@
+package com.celerysoft;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Pre-rendered arcs of the spinning {@link MaterialProgressDrawable}, see
+ * {@link MaterialProgressDrawable#setSpriteMode(boolean)}.
+ * <p>
+ * Over a spinning cycle the arc only changes by its sweep, its start angle and its color. The atlas
+ * holds one alpha-only frame per sweep step, the start angle is applied by rotating the canvas and
+ * the color by the paint the frame is drawn with. Atlases are rendered on a background thread,
+ * once per size and stroke, and shared by every drawable of the process.
+ * </p>
+ */
+final class SpinnerAtlas {
+    /** Number of sweep steps between an empty arc and the longest one **/
+    static final int FRAME_COUNT = 48;
+    private static final int COLUMNS = 8;
+    // Sweep of the last frame, the arc of a spinning ring never gets longer
+    private static final float MAX_SWEEP = -MaterialProgressDrawable.MAX_PROGRESS_ARC * 360;
+    // Sizes and strokes in use at the same time
+    private static final int MAX_ATLASES = 4;
+
+    private static final LruCache<String, SpinnerAtlas> sAtlases = new LruCache<>(MAX_ATLASES);
+    /** Drawables waiting for an atlas being rendered, only accessed on the main thread **/
+    private static final HashMap<String, ArrayList<Runnable>> sPending = new HashMap<>();
+    private static Handler sRenderHandler;
+    private static Handler sMainHandler;
+
+    private final Bitmap mBitmap;
+    private final int mFrameWidth;
+    private final int mFrameHeight;
+    // Only used on the main thread
+    private final Rect mFrameBounds = new Rect();
+
+    private SpinnerAtlas(Bitmap bitmap, int frameWidth, int frameHeight) {
+        mBitmap = bitmap;
+        mFrameWidth = frameWidth;
+        mFrameHeight = frameHeight;
+    }
+
+    /**
+     * Get the atlas of a configuration, or start rendering it. Must be called on the main thread.
+     *
+     * @param onReady Run on the main thread once the atlas has been rendered, when it is not ready yet
+     * @return The atlas, null while it is rendered.
+     */
+    static SpinnerAtlas obtain(final int width, final int height, final float strokeWidth,
+                               final float strokeInset, Runnable onReady) {
+        final String key = width + "x" + height + "/" + strokeWidth + "/" + strokeInset;
+        final SpinnerAtlas atlas = sAtlases.get(key);
+        if (atlas != null) {
+            return atlas;
+        }
+
+        ArrayList<Runnable> waiting = sPending.get(key);
+        if (waiting == null) {
+            waiting = new ArrayList<>();
+            sPending.put(key, waiting);
+            ensureHandlers();
+            sRenderHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    final Bitmap bitmap = render(width, height, strokeWidth, strokeInset);
+                    sMainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            sAtlases.put(key, new SpinnerAtlas(bitmap, width, height));
+                            final ArrayList<Runnable> callbacks = sPending.remove(key);
+                            for (int i = 0; i < callbacks.size(); i++) {
+                                callbacks.get(i).run();
+                            }
+                        }
+                    });
+                }
+            });
+        }
+        if (!waiting.contains(onReady)) {
+            waiting.add(onReady);
+        }
+        return null;
+    }
+
+    private static void ensureHandlers() {
+        if (sRenderHandler == null) {
+            final HandlerThread thread = new HandlerThread("SpinnerAtlas",
+                    Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            sRenderHandler = new Handler(thread.getLooper());
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+    }
+
+    private static Bitmap render(int width, int height, float strokeWidth, float strokeInset) {
+        final int rows = (FRAME_COUNT + COLUMNS - 1) / COLUMNS;
+        final Bitmap bitmap = Bitmap.createBitmap(width * COLUMNS, height * rows,
+                Bitmap.Config.ALPHA_8);
+        final Canvas canvas = new Canvas(bitmap);
+
+        // Same paint as the ring, the color comes from the paint the frames are drawn with
+        final Paint paint = new Paint();
+        paint.setStrokeCap(Paint.Cap.SQUARE);
+        paint.setAntiAlias(true);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(strokeWidth);
+
+        final RectF arcBounds = new RectF();
+        for (int frame = 0; frame < FRAME_COUNT; frame++) {
+            final int left = (frame % COLUMNS) * width;
+            final int top = (frame / COLUMNS) * height;
+            arcBounds.set(left, top, left + width, top + height);
+            arcBounds.inset(strokeInset, strokeInset);
+            canvas.drawArc(arcBounds, 0, MAX_SWEEP * frame / (FRAME_COUNT - 1), false, paint);
+        }
+        return bitmap;
+    }
+
+    /**
+     * @param sweepAngle Sweep of the arc in degrees, as given to {@link Canvas#drawArc}
+     * @return The frame closest to that sweep, or -1 if the atlas has none.
+     */
+    int getFrame(float sweepAngle) {
+        final float position = sweepAngle / MAX_SWEEP * (FRAME_COUNT - 1);
+        if (position < -.5f || position > FRAME_COUNT - .5f) {
+            return -1;
+        }
+        return Math.max(0, Math.min(FRAME_COUNT - 1, Math.round(position)));
+    }
+
+    /**
+     * Draw a frame, starting at angle 0 of the bounds, with the color of the paint.
+     */
+    void draw(Canvas canvas, int frame, Rect bounds, Paint paint) {
+        final int left = (frame % COLUMNS) * mFrameWidth;
+        final int top = (frame / COLUMNS) * mFrameHeight;
+        mFrameBounds.set(left, top, left + mFrameWidth, top + mFrameHeight);
+        canvas.drawBitmap(mBitmap, mFrameBounds, bounds, paint);
+    }
+}
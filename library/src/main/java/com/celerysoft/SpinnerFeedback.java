@@ -0,0 +1,57 @@
+package com.celerysoft;
+
+/**
+ * Feedback of the Material progress spinner while the header is pulled and while refreshing,
+ * shared by the default header of {@link AdvancedSwipeRefreshLayout} and by
+ * {@link MaterialHeaderRenderer} so that both draw the same spinner.
+ */
+final class SpinnerFeedback {
+    static final int MAX_ALPHA = 255;
+    static final int STARTING_PROGRESS_ALPHA = (int) (.3f * MAX_ALPHA);
+    // Max amount of circle that can be filled by progress during swipe gesture,
+    // where 1.0 is a full circle
+    static final float MAX_PROGRESS_ANGLE = .8f;
+    // Default background for the progress spinner
+    static final int CIRCLE_BG_LIGHT = 0xFFFAFAFA;
+
+    private SpinnerFeedback() {
+    }
+
+    /**
+     * @param slingshotPercent Pulled distance past the trigger point divided by the slingshot
+     *                         distance, from 0 to 2
+     * @return The tension of the pull, which slows the header and turns the ring past the
+     * trigger point.
+     */
+    static float getTensionPercent(float slingshotPercent) {
+        return (float) ((slingshotPercent / 4) - Math.pow((slingshotPercent / 4), 2)) * 2f;
+    }
+
+    /**
+     * Grow the arc and the arrow once the header is pulled past 40% of the trigger distance, and
+     * turn the ring with the tension.
+     *
+     * @param dragPercent    Pulled distance divided by the trigger distance, from 0 to 1
+     * @param tensionPercent See {@link #getTensionPercent(float)}
+     */
+    static void applyPull(MaterialProgressDrawable progress, float dragPercent, float tensionPercent) {
+        float adjustedPercent = (float) Math.max(dragPercent - .4, 0) * 5 / 3;
+        float strokeStart = adjustedPercent * .8f;
+        progress.showArrow(true);
+        progress.setStartEndTrim(0f, Math.min(MAX_PROGRESS_ANGLE, strokeStart));
+        progress.setArrowScale(Math.min(1f, adjustedPercent));
+
+        float rotation = (-0.25f + .4f * adjustedPercent + tensionPercent * 2) * .5f;
+        progress.setProgressRotation(rotation);
+    }
+
+    /**
+     * Show a refresh with the low-end profile, a still arc rather than an animation running for
+     * the whole refresh.
+     */
+    static void applyStillRefresh(MaterialProgressDrawable progress) {
+        progress.setAlpha(MAX_ALPHA);
+        progress.showArrow(false);
+        progress.setStartEndTrim(0f, MAX_PROGRESS_ANGLE);
+    }
+}
@@ -0,0 +1,70 @@
+package com.celerysoft;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.annotation.ColorInt;
+
+/**
+ * Default {@link AdvancedSwipeRefreshLayout.FooterRenderer}, a single arc that grows while the
+ * footer is pushed and spins while loading more. It replaces the indeterminate
+ * {@link android.widget.ProgressBar} the footer used to be made of, and draws without allocating.
+ */
+public class SpinnerFooterRenderer implements AdvancedSwipeRefreshLayout.FooterRenderer {
+    private static final int DEFAULT_COLOR = 0xFF757575;
+    // Diameter and stroke width of the spinner in dips
+    private static final float SPINNER_DIAMETER = 28f;
+    private static final float STROKE_WIDTH = 3f;
+
+    // Same duration per turn as MaterialProgressDrawable
+    private static final int ROTATION_DURATION = 1332;
+    private static final float MAX_SWEEP_ANGLE = 270f;
+
+    private final int mHeight;
+    private final float mDiameter;
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF mArcBounds = new RectF();
+
+    public SpinnerFooterRenderer(Context context) {
+        final float density = context.getResources().getDisplayMetrics().density;
+        mHeight = (int) (AdvancedSwipeRefreshLayout.FOOTER_HEIGHT * density);
+        mDiameter = SPINNER_DIAMETER * density;
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setStrokeCap(Paint.Cap.ROUND);
+        mPaint.setStrokeWidth(STROKE_WIDTH * density);
+        mPaint.setColor(DEFAULT_COLOR);
+    }
+
+    /**
+     * Set the color of the spinner.
+     */
+    public void setColor(@ColorInt int color) {
+        mPaint.setColor(color);
+    }
+
+    @Override
+    public int getHeight() {
+        return mHeight;
+    }
+
+    @Override
+    public boolean draw(Canvas canvas, int width, int pushDistance, boolean loadingMore, long drawingTime) {
+        final float radius = (mDiameter - mPaint.getStrokeWidth()) / 2;
+        final float centerX = width / 2f;
+        final float centerY = mHeight / 2f;
+        mArcBounds.set(centerX - radius, centerY - radius, centerX + radius, centerY + radius);
+
+        if (loadingMore) {
+            final float rotation = (drawingTime % ROTATION_DURATION) * 360f / ROTATION_DURATION;
+            canvas.drawArc(mArcBounds, rotation - 90f, MAX_SWEEP_ANGLE, false, mPaint);
+            return true;
+        }
+
+        final float pushFraction = Math.min(1f, pushDistance / (float) mHeight);
+        if (pushFraction > 0f) {
+            canvas.drawArc(mArcBounds, -90f, MAX_SWEEP_ANGLE * pushFraction, false, mPaint);
+        }
+        return false;
+    }
+}
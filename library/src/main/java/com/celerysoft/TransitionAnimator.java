@@ -0,0 +1,287 @@
+package com.celerysoft;
+
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+
+/**
+ * Preallocated driver for the header and footer transitions of {@link AdvancedSwipeRefreshLayout}.
+ * <p>
+ * Every transition runs on a channel. Starting a transition on a busy channel retargets that
+ * channel instead of allocating a new animation, and all channels are advanced by this single
+ * {@link Runnable} posted with {@link ViewCompat#postOnAnimation(View, Runnable)}, so neither a
+ * gesture nor a frame allocates anything.
+ * </p>
+ * <p>
+ * A transition either follows an interpolator over a fixed duration, or is a spring that moves a
+ * value to its target and ends when it comes to rest. Starting a spring on a channel already
+ * running one keeps its velocity, so the motion bends towards the new target without a jump.
+ * </p>
+ */
+class TransitionAnimator implements Runnable {
+    /** No transition is running on the channel **/
+    static final int TRANSITION_NONE = 0;
+
+    /** Offset of the header view container **/
+    static final int CHANNEL_HEADER = 0;
+    /** Scale and alpha of the progress circle **/
+    static final int CHANNEL_SPINNER = 1;
+    /** Push distance of the footer view container **/
+    static final int CHANNEL_FOOTER = 2;
+    private static final int CHANNEL_COUNT = 3;
+
+    // Same default as android.view.animation.Animation
+    private static final Interpolator DEFAULT_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+
+    /** Default stiffness of the springs, settles a critically damped spring in about 250ms **/
+    static final float DEFAULT_STIFFNESS = 600f;
+    /** Default damping ratio of the springs, critically damped so that it does not overshoot **/
+    static final float DEFAULT_DAMPING_RATIO = 1f;
+    // Integration step of the springs in seconds, small enough to stay stable when stiff
+    private static final float SPRING_STEP = 1f / 240;
+    // Longest frame integrated, in milliseconds, a longer pause does not make the spring jump
+    private static final long MAX_SPRING_FRAME = 48;
+    // A spring closer than this to its target, in pixels, and slower than this, in pixels per
+    // second, is at rest
+    private static final float REST_DISTANCE = .5f;
+    private static final float REST_VELOCITY = 20f;
+
+    private final View mHost;
+    private final Callback mCallback;
+
+    private final int[] mTransition = new int[CHANNEL_COUNT];
+    private final long[] mStartTime = new long[CHANNEL_COUNT];
+    private final long[] mDuration = new long[CHANNEL_COUNT];
+    private final Interpolator[] mInterpolator = new Interpolator[CHANNEL_COUNT];
+    private final Listener[] mListener = new Listener[CHANNEL_COUNT];
+
+    private final boolean[] mSpring = new boolean[CHANNEL_COUNT];
+    private final float[] mValue = new float[CHANNEL_COUNT];
+    private final float[] mVelocity = new float[CHANNEL_COUNT];
+    private final float[] mTargetValue = new float[CHANNEL_COUNT];
+    private final long[] mFrameTime = new long[CHANNEL_COUNT];
+    private float mStiffness = DEFAULT_STIFFNESS;
+    private float mDampingRatio = DEFAULT_DAMPING_RATIO;
+
+    private boolean mScheduled;
+
+    TransitionAnimator(View host, Callback callback) {
+        mHost = host;
+        mCallback = callback;
+    }
+
+    /**
+     * Start a transition on the channel, replacing whatever the channel was running. The replaced
+     * transition does not get its end callback, like {@link View#clearAnimation()}.
+     *
+     * @param channel      One of {@link #CHANNEL_HEADER}, {@link #CHANNEL_SPINNER} or {@link #CHANNEL_FOOTER}
+     * @param transition   Id of the transition, passed back to {@link Callback#onTransitionUpdate(int, float)}
+     * @param duration     Duration in milliseconds
+     * @param interpolator Interpolator, null for the default one of {@link android.view.animation.Animation}
+     * @param listener     Notified when the transition completes, may be null
+     */
+    void start(int channel, int transition, long duration, Interpolator interpolator, Listener listener) {
+        mTransition[channel] = transition;
+        mStartTime[channel] = AnimationUtils.currentAnimationTimeMillis();
+        mDuration[channel] = duration;
+        mInterpolator[channel] = interpolator != null ? interpolator : DEFAULT_INTERPOLATOR;
+        mListener[channel] = listener;
+        mSpring[channel] = false;
+        schedule();
+    }
+
+    /**
+     * Start a spring on the channel, replacing whatever the channel was running. When the channel
+     * was already running a spring, its velocity is kept and the given one ignored.
+     *
+     * @param channel    One of {@link #CHANNEL_HEADER}, {@link #CHANNEL_SPINNER} or {@link #CHANNEL_FOOTER}
+     * @param transition Id of the transition, passed back to {@link Callback#onSpringUpdate(int, float)}
+     * @param from       Current value
+     * @param to         Value the spring comes to rest at
+     * @param velocity   Initial velocity in units per second
+     * @param listener   Notified when the spring comes to rest, may be null
+     */
+    void startSpring(int channel, int transition, float from, float to, float velocity,
+                     Listener listener) {
+        final boolean retarget = mSpring[channel] && mTransition[channel] != TRANSITION_NONE;
+        final long now = AnimationUtils.currentAnimationTimeMillis();
+        if (!retarget) {
+            mVelocity[channel] = velocity;
+            mFrameTime[channel] = now;
+        }
+        mTransition[channel] = transition;
+        mStartTime[channel] = now;
+        mListener[channel] = listener;
+        mSpring[channel] = true;
+        mValue[channel] = from;
+        mTargetValue[channel] = to;
+        schedule();
+    }
+
+    /**
+     * Set the physics of the springs started afterwards and of the running ones.
+     *
+     * @param stiffness    Stiffness of the springs, per second squared for a unit mass
+     * @param dampingRatio Damping ratio, 1 for critical damping, lower to overshoot
+     */
+    void setSpring(float stiffness, float dampingRatio) {
+        mStiffness = stiffness;
+        mDampingRatio = dampingRatio;
+    }
+
+    /**
+     * Stop the channel without notifying its listener.
+     */
+    void cancel(int channel) {
+        mTransition[channel] = TRANSITION_NONE;
+        mListener[channel] = null;
+    }
+
+    /**
+     * Jump every channel to the end of its transition and notify its listener, then stop, so that
+     * no frame runs anymore. Transitions started by the listeners are stopped without notice.
+     */
+    void endAll() {
+        mHost.removeCallbacks(this);
+        mScheduled = false;
+        for (int channel = 0; channel < CHANNEL_COUNT; channel++) {
+            final int transition = mTransition[channel];
+            if (transition == TRANSITION_NONE) {
+                continue;
+            }
+            if (mSpring[channel]) {
+                mValue[channel] = mTargetValue[channel];
+                mVelocity[channel] = 0;
+                mCallback.onSpringUpdate(transition, mValue[channel]);
+            } else {
+                mCallback.onTransitionUpdate(transition, mInterpolator[channel].getInterpolation(1f));
+            }
+            if (mTransition[channel] != transition) {
+                continue;
+            }
+            final Listener listener = mListener[channel];
+            cancel(channel);
+            if (listener != null) {
+                listener.onTransitionEnd(transition);
+            }
+        }
+        for (int channel = 0; channel < CHANNEL_COUNT; channel++) {
+            cancel(channel);
+        }
+        mHost.removeCallbacks(this);
+        mScheduled = false;
+    }
+
+    boolean isRunning(int channel, int transition) {
+        return mTransition[channel] == transition;
+    }
+
+    private void schedule() {
+        if (!mScheduled) {
+            mScheduled = true;
+            ViewCompat.postOnAnimation(mHost, this);
+        }
+    }
+
+    @Override
+    public void run() {
+        mScheduled = false;
+        final long now = AnimationUtils.currentAnimationTimeMillis();
+        boolean running = false;
+        for (int channel = 0; channel < CHANNEL_COUNT; channel++) {
+            final int transition = mTransition[channel];
+            if (transition == TRANSITION_NONE) {
+                continue;
+            }
+            final long startTime = mStartTime[channel];
+            final boolean finished;
+            if (mSpring[channel]) {
+                finished = stepSpring(channel, now);
+                mCallback.onSpringUpdate(transition, mValue[channel]);
+            } else {
+                final long duration = mDuration[channel];
+                final float normalizedTime = duration > 0
+                        ? Math.min(1f, (now - startTime) / (float) duration) : 1f;
+                mCallback.onTransitionUpdate(transition,
+                        mInterpolator[channel].getInterpolation(normalizedTime));
+                finished = normalizedTime >= 1f;
+            }
+
+            // The update may have retargeted or cancelled the channel
+            if (mTransition[channel] != transition || mStartTime[channel] != startTime) {
+                running |= mTransition[channel] != TRANSITION_NONE;
+                continue;
+            }
+            if (!finished) {
+                running = true;
+                continue;
+            }
+            final Listener listener = mListener[channel];
+            cancel(channel);
+            if (listener != null) {
+                listener.onTransitionEnd(transition);
+            }
+            running |= mTransition[channel] != TRANSITION_NONE;
+        }
+        if (running) {
+            schedule();
+        }
+    }
+
+    /**
+     * Advance the spring of the channel to the frame time, a damped harmonic oscillator of unit
+     * mass integrated with semi-implicit Euler steps.
+     *
+     * @return true once the spring has come to rest at its target.
+     */
+    private boolean stepSpring(int channel, long now) {
+        float dt = Math.min(now - mFrameTime[channel], MAX_SPRING_FRAME) / 1000f;
+        mFrameTime[channel] = now;
+
+        final float damping = 2 * mDampingRatio * (float) Math.sqrt(mStiffness);
+        final float target = mTargetValue[channel];
+        float x = mValue[channel] - target;
+        float v = mVelocity[channel];
+        while (dt > 0) {
+            final float step = Math.min(dt, SPRING_STEP);
+            v += (-mStiffness * x - damping * v) * step;
+            x += v * step;
+            dt -= step;
+        }
+
+        if (Math.abs(x) < REST_DISTANCE && Math.abs(v) < REST_VELOCITY) {
+            mValue[channel] = target;
+            mVelocity[channel] = 0;
+            return true;
+        }
+        mValue[channel] = target + x;
+        mVelocity[channel] = v;
+        return false;
+    }
+
+    /**
+     * Applies the frames of the transitions.
+     */
+    interface Callback {
+        /**
+         * @param transition       Id of the transition
+         * @param interpolatedTime Interpolated progress of the transition, from 0 to 1
+         */
+        void onTransitionUpdate(int transition, float interpolatedTime);
+
+        /**
+         * @param transition Id of the transition
+         * @param value      Current value of the spring, its target on the last frame
+         */
+        void onSpringUpdate(int transition, float value);
+    }
+
+    /**
+     * Notified when a transition completes.
+     */
+    interface Listener {
+        void onTransitionEnd(int transition);
+    }
+}
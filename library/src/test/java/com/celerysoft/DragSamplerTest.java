@@ -0,0 +1,148 @@
+package com.celerysoft;
+
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class DragSamplerTest {
+    private static final float DELTA = 1e-3f;
+
+    // A downward drag at 0.75 pixels per millisecond reported by a 120Hz digitizer, every MOVE
+    // event carrying its historical samples: {event time, y}
+    private static final long[][] MOVE_STREAM = {
+            {0, 200}, {8, 206}, {16, 212},
+            {25, 219}, {33, 225},
+            {41, 231}, {50, 238}, {58, 244},
+            {66, 250}, {75, 256},
+    };
+    private static final float VELOCITY = .75f;
+    private static final long MAX_PREDICTION = 32;
+
+    // A drag sampled at 120Hz which speeds up to 1.2 pixels per millisecond, keeps that speed and
+    // slows down to a stop, rounded to the pixel: {sample time, y}
+    private static final long[][] DRAG_TRACE = {
+            {0, 200}, {8, 200}, {17, 201}, {25, 203}, {33, 206}, {42, 209},
+            {50, 212}, {58, 217}, {67, 222}, {75, 228}, {83, 235}, {92, 242},
+            {100, 250}, {108, 259}, {117, 268}, {125, 278}, {133, 288}, {142, 298},
+            {150, 308}, {158, 318}, {167, 328}, {175, 338}, {183, 348}, {192, 358},
+            {200, 368}, {208, 378}, {217, 388}, {225, 398}, {233, 408}, {242, 418},
+            {250, 428}, {258, 438}, {267, 447}, {275, 456}, {283, 464}, {292, 471},
+            {300, 478}, {308, 484}, {317, 490}, {325, 495}, {333, 500}, {342, 504},
+            {350, 508}, {358, 511},
+    };
+    // The trace is delivered at 60Hz, every MOVE event carrying the previous sample as history
+    private static final int SAMPLES_PER_EVENT = 2;
+
+    private DragSampler mSampler;
+
+    @Before
+    public void setUp() {
+        mSampler = new DragSampler();
+    }
+
+    @Test
+    public void velocityOfLinearDrag() {
+        // Exactly linear samples, the fit must find the slope
+        for (int t = 0; t <= 64; t += 8) {
+            mSampler.add(100 + VELOCITY * t, t);
+        }
+        assertEquals(VELOCITY, mSampler.getVelocity(), DELTA);
+    }
+
+    @Test
+    public void velocityOfRecordedStream() {
+        replay(MOVE_STREAM);
+        // The recorded positions are rounded to the pixel
+        assertEquals(VELOCITY, mSampler.getVelocity(), .02f);
+    }
+
+    @Test
+    public void predictionIsCapped() {
+        for (int t = 0; t <= 64; t += 8) {
+            mSampler.add(100 + VELOCITY * t, t);
+        }
+
+        assertEquals(148 + 12f, mSampler.predictY(64 + 16), DELTA);
+        assertEquals(148 + 24f, mSampler.predictY(64 + MAX_PREDICTION), DELTA);
+        // A late frame does not extrapolate any further
+        assertEquals(148 + 24f, mSampler.predictY(64 + 200), DELTA);
+        // Nor does a frame older than the newest sample move back
+        assertEquals(148f, mSampler.predictY(64 - 8), DELTA);
+    }
+
+    @Test
+    public void predictsTheNextFrameOfADragTrace() {
+        final long downTime = DRAG_TRACE[0][0];
+        float sumError = 0;
+        float maxError = 0;
+        float sumLag = 0;
+        int frames = 0;
+        for (int first = 0; first + SAMPLES_PER_EVENT < DRAG_TRACE.length; first += SAMPLES_PER_EVENT) {
+            final MotionEvent ev = obtainMove(downTime, first);
+            mSampler.add(ev, 0);
+            ev.recycle();
+
+            // One frame ahead, where the next event puts the pointer
+            final long[] next = DRAG_TRACE[first + 2 * SAMPLES_PER_EVENT - 1];
+            final float error = Math.abs(mSampler.predictY(next[0]) - next[1]);
+            sumError += error;
+            maxError = Math.max(maxError, error);
+            sumLag += Math.abs(mSampler.getLatestY() - next[1]);
+            frames++;
+        }
+        final float meanError = sumError / frames;
+
+        assertEquals(21, frames);
+        assertTrue("mean error " + meanError + "px", meanError < 3.5f);
+        assertTrue("max error " + maxError + "px", maxError < 6f);
+        // Without a prediction the header trails the finger by a whole frame
+        assertTrue(meanError < sumLag / frames / 4);
+    }
+
+    @Test
+    public void outOfOrderSamplesAreDropped() {
+        replay(MOVE_STREAM);
+        final float latestY = mSampler.getLatestY();
+        final float velocity = mSampler.getVelocity();
+
+        // A sample older than the newest one, e.g. a stale historical sample
+        mSampler.add(500, 60);
+
+        assertEquals(latestY, mSampler.getLatestY(), 0f);
+        assertEquals(velocity, mSampler.getVelocity(), 0f);
+    }
+
+    @Test
+    public void singleSampleHasNoVelocity() {
+        mSampler.add(100, 0);
+        assertEquals(0f, mSampler.getVelocity(), 0f);
+        assertEquals(100f, mSampler.predictY(16), 0f);
+    }
+
+    /**
+     * @param first Index in {@link #DRAG_TRACE} of the oldest sample of the event
+     */
+    private static MotionEvent obtainMove(long downTime, int first) {
+        final MotionEvent ev = MotionEvent.obtain(downTime, DRAG_TRACE[first][0],
+                MotionEvent.ACTION_MOVE, 0, DRAG_TRACE[first][1], 0);
+        for (int i = first + 1; i < first + SAMPLES_PER_EVENT; i++) {
+            ev.addBatch(DRAG_TRACE[i][0], 0, DRAG_TRACE[i][1], 1f, 1f, 0);
+        }
+        return ev;
+    }
+
+    private void replay(long[][] stream) {
+        for (long[] sample : stream) {
+            mSampler.add(sample[1], sample[0]);
+        }
+    }
+}
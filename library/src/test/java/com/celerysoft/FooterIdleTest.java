@@ -0,0 +1,80 @@
+package com.celerysoft;
+
+import android.app.Activity;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Once load-more has finished the footer must not keep the layout busy with frame callbacks.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class FooterIdleTest {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+
+    private AdvancedSwipeRefreshLayout mLayout;
+    private View mTarget;
+    private int mLoadMoreCount;
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.setupActivity(Activity.class);
+        mLayout = new AdvancedSwipeRefreshLayout(activity);
+        // A plain view never scrolls, so the end of the list is always reached
+        mTarget = new View(activity);
+        mLayout.addView(mTarget);
+        mLayout.setOnPushToLoadMoreListener(new AdvancedSwipeRefreshLayout.OnPushToLoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+                mLoadMoreCount++;
+            }
+
+            @Override
+            public void onPushDistance(int distance) {
+            }
+
+            @Override
+            public void onPushEnable(boolean enable) {
+            }
+        });
+        activity.setContentView(mLayout);
+        mLayout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mLayout.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void footerSchedulesNoFrameOnceLoadMoreHasFinished() {
+        pushToLoadMore();
+        ShadowLooper.idleMainLooper(2, TimeUnit.SECONDS);
+        assertEquals(1, mLoadMoreCount);
+
+        mLayout.setLoadingMore(false);
+        ShadowLooper.idleMainLooper(2, TimeUnit.SECONDS);
+
+        assertTrue(mLayout.getTransitionAnimator().isRunning(TransitionAnimator.CHANNEL_FOOTER,
+                TransitionAnimator.TRANSITION_NONE));
+        assertEquals(0, ShadowLooper.getShadowMainLooper().getScheduler().size());
+    }
+
+    private void pushToLoadMore() {
+        assertTrue(mLayout.onStartNestedScroll(mTarget, mTarget, ViewCompat.SCROLL_AXIS_VERTICAL));
+        mLayout.onNestedScrollAccepted(mTarget, mTarget, ViewCompat.SCROLL_AXIS_VERTICAL);
+        mLayout.onNestedScroll(mTarget, 0, 0, 0, HEIGHT);
+        mLayout.onStopNestedScroll(mTarget);
+    }
+}
@@ -0,0 +1,119 @@
+package com.celerysoft;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.RelativeLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class HeaderViewContainerTest {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 100;
+
+    private HeaderViewContainer mContainer;
+
+    @Before
+    public void setUp() {
+        mContainer = new HeaderViewContainer(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void measuresEachChildOncePerPass() {
+        final RelativeLayout relativeLayout = new RelativeLayout(RuntimeEnvironment.application);
+        final CountingView[] containerChildren = addCountingChildren(mContainer);
+        final CountingView[] relativeChildren = addCountingChildren(relativeLayout);
+
+        // The RelativeLayout the header container used to be, against the container
+        measurePass(relativeLayout, relativeChildren);
+        measurePass(mContainer, containerChildren);
+
+        for (int i = 0; i < containerChildren.length; i++) {
+            assertEquals(2, relativeChildren[i].mMeasureCount);
+            assertEquals(1, containerChildren[i].mMeasureCount);
+        }
+    }
+
+    @Test
+    public void centersChildWithinItsMargins() {
+        final View child = new View(RuntimeEnvironment.application);
+        final ViewGroup.MarginLayoutParams lp = new ViewGroup.MarginLayoutParams(100, 40);
+        lp.setMargins(20, 10, 0, 0);
+        mContainer.addView(child, lp);
+
+        measure();
+        mContainer.layout(0, 0, WIDTH, HEIGHT);
+
+        assertEquals(20 + (WIDTH - 20 - 100) / 2, child.getLeft());
+        assertEquals(10 + (HEIGHT - 10 - 40) / 2, child.getTop());
+    }
+
+    @Test
+    public void stretchesMatchParentChildWithinItsMargins() {
+        final View child = new View(RuntimeEnvironment.application);
+        final ViewGroup.MarginLayoutParams lp = new ViewGroup.MarginLayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+        lp.setMargins(16, 8, 24, 4);
+        mContainer.addView(child, lp);
+
+        measure();
+        mContainer.layout(0, 0, WIDTH, HEIGHT);
+
+        assertEquals(WIDTH - 16 - 24, child.getMeasuredWidth());
+        assertEquals(HEIGHT - 8 - 4, child.getMeasuredHeight());
+        assertEquals(16, child.getLeft());
+        assertEquals(8, child.getTop());
+    }
+
+    private static CountingView[] addCountingChildren(ViewGroup parent) {
+        final CountingView[] children = {
+                new CountingView(RuntimeEnvironment.application),
+                new CountingView(RuntimeEnvironment.application),
+        };
+        parent.addView(children[0], new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        parent.addView(children[1], new ViewGroup.LayoutParams(40, 40));
+        return children;
+    }
+
+    /**
+     * One measure pass after the children requested a layout, so that none of their measures is
+     * skipped by the platform.
+     */
+    private static void measurePass(ViewGroup parent, CountingView[] children) {
+        for (CountingView child : children) {
+            child.requestLayout();
+            child.mMeasureCount = 0;
+        }
+        parent.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    }
+
+    private void measure() {
+        mContainer.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    }
+
+    private static class CountingView extends View {
+        int mMeasureCount;
+
+        CountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mMeasureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+    }
+}
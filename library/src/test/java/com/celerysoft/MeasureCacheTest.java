@@ -0,0 +1,79 @@
+package com.celerysoft;
+
+import android.content.Context;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The children of the layout are measured once per pass, however many times its parent measures it.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 23)
+public class MeasureCacheTest {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+
+    private AdvancedSwipeRefreshLayout mLayout;
+    private CountingView mTarget;
+
+    @Before
+    public void setUp() {
+        mLayout = new AdvancedSwipeRefreshLayout(RuntimeEnvironment.application);
+        mTarget = new CountingView(RuntimeEnvironment.application);
+        mLayout.addView(mTarget);
+        measure(View.MeasureSpec.EXACTLY, WIDTH);
+        mLayout.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void repeatedMeasuresOfOnePassMeasureTheTargetOnce() {
+        // The target changed, e.g. its adapter did
+        mTarget.requestLayout();
+        final int before = mTarget.mMeasureCount;
+
+        // Like CoordinatorLayout, measure the layout several times in the same pass
+        measure(View.MeasureSpec.AT_MOST, WIDTH);
+        measure(View.MeasureSpec.EXACTLY, WIDTH);
+        measure(View.MeasureSpec.EXACTLY, WIDTH);
+
+        assertEquals(before + 1, mTarget.mMeasureCount);
+    }
+
+    @Test
+    public void newSizeMeasuresTheTargetAgain() {
+        mLayout.requestLayout();
+        final int before = mTarget.mMeasureCount;
+
+        measure(View.MeasureSpec.EXACTLY, WIDTH / 2);
+
+        assertEquals(before + 1, mTarget.mMeasureCount);
+        assertEquals(WIDTH / 2, mTarget.getMeasuredWidth());
+    }
+
+    private void measure(int mode, int width) {
+        mLayout.measure(View.MeasureSpec.makeMeasureSpec(width, mode),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, mode));
+    }
+
+    private static class CountingView extends View {
+        int mMeasureCount;
+
+        CountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mMeasureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+    }
+}